@@ -0,0 +1,221 @@
+package es.jeremy.ejeh;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Planificador de actualizaciones de una {@code ObservableList} mostrada en la interfaz.
+ * <p>
+ * Los cambios se pueden pedir desde cualquier hilo y se acumulan fuera del hilo de JavaFX.
+ * Como mucho hay un {@code Platform.runLater} pendiente a la vez: cuando se ejecuta, aplica de
+ * una vez todos los cambios acumulados, fusionando las altas consecutivas en un único
+ * {@code addAll} y los reemplazos en un único {@code setAll}. Así una carga de miles de filas
+ * produce un solo evento de cambio y un solo recálculo de la tabla, en lugar de uno por fila.
+ * </p>
+ * <p>
+ * También mide el tiempo que tarda cada aplicación de cambios en el hilo de JavaFX y avisa cuando
+ * supera el presupuesto de un fotograma a 60 fps. La medida incluye los {@code setAll},
+ * {@code addAll} y {@code removeAll} y los oyentes que disparan en el acto (las vistas ordenada y
+ * filtrada y la tabla), pero no el CSS, la maquetación ni el dibujado que JavaFX hace después: no es
+ * el tiempo de un fotograma sino una cota inferior, la parte que se debe a los cambios de la lista.
+ * </p>
+ *
+ * @param <T> el tipo de los elementos de la lista.
+ */
+public class ActualizadorLista<T> {
+
+    /**
+     * Duración de un fotograma a 60 fps, en nanosegundos. Una aplicación de cambios que la supera
+     * retrasa por sí sola el fotograma, antes incluso del CSS, la maquetación y el dibujado.
+     */
+    public static final long PRESUPUESTO_FOTOGRAMA_NANOS = 16_666_667;
+
+    private final ObservableList<T> lista;
+    private final ConcurrentLinkedQueue<Cambio<T>> pendientes = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean programado = new AtomicBoolean();
+
+    // Métricas, solo se modifican desde el hilo de JavaFX
+    private long aplicaciones;
+    private long aplicacionesFueraDePresupuesto;
+    private long nanosTotales;
+    private long nanosMaximo;
+
+    /**
+     * Crea un planificador para la lista indicada.
+     *
+     * @param lista la lista observable que se actualiza, normalmente la que muestra una tabla.
+     */
+    public ActualizadorLista(ObservableList<T> lista) {
+        this.lista = lista;
+    }
+
+    /**
+     * Pide añadir elementos al final de la lista.
+     *
+     * @param elementos los elementos a añadir.
+     */
+    public void anadir(Collection<? extends T> elementos) {
+        encolar(new Cambio<>(TipoCambio.ANADIR, new ArrayList<>(elementos)));
+    }
+
+    /**
+     * Pide eliminar elementos de la lista.
+     *
+     * @param elementos los elementos a eliminar.
+     */
+    public void eliminar(Collection<? extends T> elementos) {
+        encolar(new Cambio<>(TipoCambio.ELIMINAR, new ArrayList<>(elementos)));
+    }
+
+    /**
+     * Pide reemplazar todo el contenido de la lista. Los cambios pendientes anteriores se descartan.
+     *
+     * @param elementos el nuevo contenido de la lista.
+     */
+    public void reemplazar(Collection<? extends T> elementos) {
+        encolar(new Cambio<>(TipoCambio.REEMPLAZAR, new ArrayList<>(elementos)));
+    }
+
+    /**
+     * Devuelve el número de veces que se han aplicado cambios en el hilo de JavaFX.
+     *
+     * @return el número de aplicaciones.
+     */
+    public long getAplicaciones() {
+        return aplicaciones;
+    }
+
+    /**
+     * Devuelve el número de aplicaciones de cambios que por sí solas superaron la duración de un fotograma.
+     *
+     * @return el número de aplicaciones fuera de presupuesto.
+     */
+    public long getAplicacionesFueraDePresupuesto() {
+        return aplicacionesFueraDePresupuesto;
+    }
+
+    /**
+     * Devuelve el tiempo medio que ha tardado una aplicación de cambios, sin el CSS, la
+     * maquetación ni el dibujado posteriores.
+     *
+     * @return el tiempo medio por aplicación en nanosegundos.
+     */
+    public long getNanosMedioPorAplicacion() {
+        return aplicaciones == 0 ? 0 : nanosTotales / aplicaciones;
+    }
+
+    /**
+     * Devuelve el mayor tiempo que ha tardado una aplicación de cambios, sin el CSS, la
+     * maquetación ni el dibujado posteriores.
+     *
+     * @return el tiempo máximo por aplicación en nanosegundos.
+     */
+    public long getNanosMaximoPorAplicacion() {
+        return nanosMaximo;
+    }
+
+    /**
+     * Encola un cambio y programa su aplicación si no hay ninguna programada.
+     *
+     * @param cambio el cambio a encolar.
+     */
+    private void encolar(Cambio<T> cambio) {
+        pendientes.add(cambio);
+        if (programado.compareAndSet(false, true)) {
+            Platform.runLater(this::aplicar);
+        }
+    }
+
+    /**
+     * Aplica en el hilo de JavaFX todos los cambios acumulados, fusionando los consecutivos del mismo tipo.
+     */
+    private void aplicar() {
+        programado.set(false); // Los cambios que lleguen a partir de aquí programarán otro pulso
+        long inicio = System.nanoTime();
+
+        List<T> reemplazo = null;    // Nuevo contenido completo, si hay algún reemplazo
+        List<T> altas = new ArrayList<>();
+        List<T> bajas = new ArrayList<>();
+        Cambio<T> cambio;
+        while ((cambio = pendientes.poll()) != null) {
+            switch (cambio.tipo()) {
+                case REEMPLAZAR -> {
+                    reemplazo = cambio.elementos();
+                    altas.clear();
+                    bajas.clear();
+                }
+                case ANADIR -> {
+                    if (!bajas.isEmpty()) {
+                        aplicarParcial(reemplazo, altas, bajas);
+                        reemplazo = null;
+                    }
+                    altas.addAll(cambio.elementos());
+                }
+                case ELIMINAR -> {
+                    if (!altas.isEmpty()) {
+                        aplicarParcial(reemplazo, altas, bajas);
+                        reemplazo = null;
+                    }
+                    bajas.addAll(cambio.elementos());
+                }
+            }
+        }
+        aplicarParcial(reemplazo, altas, bajas);
+
+        long nanos = System.nanoTime() - inicio;
+        aplicaciones++;
+        nanosTotales += nanos;
+        nanosMaximo = Math.max(nanosMaximo, nanos);
+        if (nanos > PRESUPUESTO_FOTOGRAMA_NANOS) {
+            aplicacionesFueraDePresupuesto++;
+            System.out.printf("Aplicar los cambios de la lista ha superado un fotograma: %.2f ms (%d de %d aplicaciones)%n",
+                    nanos / 1e6, aplicacionesFueraDePresupuesto, aplicaciones);
+        }
+    }
+
+    /**
+     * Aplica sobre la lista un reemplazo, una fusión de bajas y una de altas, y vacía las listas de trabajo.
+     * Si hay reemplazo, las bajas y altas se aplican sobre él para emitir un único {@code setAll}.
+     *
+     * @param reemplazo el nuevo contenido completo, o {@code null} si no hay reemplazo.
+     * @param altas     los elementos a añadir.
+     * @param bajas     los elementos a eliminar.
+     */
+    private void aplicarParcial(List<T> reemplazo, List<T> altas, List<T> bajas) {
+        List<T> destino = reemplazo != null ? reemplazo : lista;
+        if (!bajas.isEmpty()) {
+            destino.removeAll(new HashSet<>(bajas)); // Búsqueda en O(1) por elemento
+            bajas.clear();
+        }
+        if (!altas.isEmpty()) {
+            destino.addAll(altas);
+            altas.clear();
+        }
+        if (reemplazo != null) {
+            lista.setAll(reemplazo);
+        }
+    }
+
+    /**
+     * Tipos de cambio que se pueden encolar.
+     */
+    private enum TipoCambio {
+        ANADIR, ELIMINAR, REEMPLAZAR
+    }
+
+    /**
+     * Cambio pendiente sobre la lista.
+     *
+     * @param tipo      el tipo de cambio.
+     * @param elementos los elementos afectados.
+     */
+    private record Cambio<T>(TipoCambio tipo, List<T> elementos) {
+    }
+}
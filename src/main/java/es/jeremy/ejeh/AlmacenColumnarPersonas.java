@@ -0,0 +1,107 @@
+package es.jeremy.ejeh;
+
+import java.util.Arrays;
+
+/**
+ * Almacén columnar y reutilizable de personas.
+ * <p>
+ * Guarda los nombres, apellidos y edades en tres arrays paralelos en lugar de un objeto
+ * {@code Persona} por fila, de modo que una carga grande no genera objetos de corta vida y el
+ * almacén se puede vaciar con {@link #limpiar()} y volver a llenar sin reservar memoria nueva.
+ * </p>
+ */
+public class AlmacenColumnarPersonas {
+    private String[] nombres;
+    private String[] apellidos;
+    private int[] edades;
+    private int tamano;
+
+    /**
+     * Crea un almacén vacío con la capacidad inicial indicada.
+     *
+     * @param capacidad el número de filas que caben sin ampliar los arrays.
+     */
+    public AlmacenColumnarPersonas(int capacidad) {
+        nombres = new String[Math.max(1, capacidad)];
+        apellidos = new String[nombres.length];
+        edades = new int[nombres.length];
+    }
+
+    /**
+     * Añade una fila al final del almacén, ampliando los arrays si es necesario.
+     *
+     * @param nombre   el nombre de la persona.
+     * @param apellido los apellidos de la persona.
+     * @param edad     la edad de la persona.
+     */
+    public void anadir(String nombre, String apellido, int edad) {
+        if (tamano == nombres.length) {
+            int nuevaCapacidad = nombres.length + (nombres.length >> 1) + 1;
+            nombres = Arrays.copyOf(nombres, nuevaCapacidad);
+            apellidos = Arrays.copyOf(apellidos, nuevaCapacidad);
+            edades = Arrays.copyOf(edades, nuevaCapacidad);
+        }
+        nombres[tamano] = nombre;
+        apellidos[tamano] = apellido;
+        edades[tamano] = edad;
+        tamano++;
+    }
+
+    /**
+     * Vacía el almacén conservando su capacidad para reutilizarlo.
+     */
+    public void limpiar() {
+        Arrays.fill(nombres, 0, tamano, null);
+        Arrays.fill(apellidos, 0, tamano, null);
+        tamano = 0;
+    }
+
+    /**
+     * Devuelve el número de filas del almacén.
+     *
+     * @return el número de filas.
+     */
+    public int getTamano() {
+        return tamano;
+    }
+
+    /**
+     * Devuelve el nombre de una fila.
+     *
+     * @param fila el índice de la fila.
+     * @return el nombre.
+     */
+    public String getNombre(int fila) {
+        return nombres[fila];
+    }
+
+    /**
+     * Devuelve los apellidos de una fila.
+     *
+     * @param fila el índice de la fila.
+     * @return los apellidos.
+     */
+    public String getApellidos(int fila) {
+        return apellidos[fila];
+    }
+
+    /**
+     * Devuelve la edad de una fila.
+     *
+     * @param fila el índice de la fila.
+     * @return la edad.
+     */
+    public int getEdad(int fila) {
+        return edades[fila];
+    }
+
+    /**
+     * Crea un objeto {@code Persona} con los datos de una fila.
+     *
+     * @param fila el índice de la fila.
+     * @return una nueva persona con los datos de la fila.
+     */
+    public Persona getPersona(int fila) {
+        return new Persona(nombres[fila], apellidos[fila], edades[fila]);
+    }
+}
@@ -0,0 +1,459 @@
+package es.jeremy.ejeh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registro de auditoría de los cambios en la tabla Persona.
+ * <p>
+ * {@link DaoPersona} registra cada alta, modificación y baja con la imagen anterior y posterior de
+ * la fila. Registrar no hace ninguna escritura: el evento se deja en un {@link BufferCircular}
+ * sin bloqueos y un hilo escritor lo vacía por lotes de {@link ConfiguracionBBDD#getTamanoLoteAuditoria()}
+ * eventos, cada {@link ConfiguracionBBDD#getIntervaloAuditoriaMs()} ms o antes si se llena un lote.
+ * El destino es, según {@link ConfiguracionBBDD#getDestinoAuditoria()}, un archivo de solo añadir
+ * con un evento JSON por línea, o la tabla {@code PersonaAuditoria} de la base de datos de cada
+ * inquilino:
+ * </p>
+ * <pre>
+ * CREATE TABLE PersonaAuditoria (
+ *     id BIGINT AUTO_INCREMENT PRIMARY KEY,
+ *     instante TIMESTAMP(3) NOT NULL,
+ *     operacion VARCHAR(12) NOT NULL,
+ *     nombre_antes VARCHAR(255), apellidos_antes VARCHAR(255), edad_antes INT,
+ *     nombre_despues VARCHAR(255), apellidos_despues VARCHAR(255), edad_despues INT
+ * );
+ * </pre>
+ * <p>
+ * Para escribir en la tabla, el hilo escritor abre su propia conexión con cada inquilino y la
+ * conserva entre lotes. No pasa por el planificador de inquilinos, los pools ni el enrutador de
+ * lecturas: la auditoría no compite por turno ni por conexión con las operaciones del usuario, y
+ * sus inserciones no desvían las lecturas al servidor principal.
+ * </p>
+ * <p>
+ * Las pérdidas están acotadas: un lote que no se puede escribir se conserva y se reintenta, de
+ * modo que solo se descartan eventos cuando la cola está llena (se cuentan en
+ * {@link #getDescartados()}), y si la aplicación termina de forma abrupta se pierden como mucho
+ * los eventos de la cola más el lote en curso. Al cerrar de forma ordenada se escriben todos.
+ * </p>
+ */
+public class AuditoriaPersonas {
+
+    /**
+     * Tiempo máximo, en milisegundos, que se espera al cerrar a que se escriban los eventos pendientes.
+     */
+    private static final long ESPERA_CIERRE_MS = 5_000;
+
+    private static final AuditoriaPersonas INSTANCIA = new AuditoriaPersonas(ConfiguracionBBDD.getActual());
+
+    private final ConfiguracionBBDD configuracion;
+    private final BufferCircular<EventoAuditoria> cola;
+    private final Thread escritor;
+    private final Map<String, Connection> conexiones = new HashMap<>(); // Por inquilino, solo las usa el escritor
+    private volatile boolean cerrado;
+
+    // Métricas de contrapresión
+    private final AtomicLong encolados = new AtomicLong();
+    private final AtomicLong descartados = new AtomicLong();
+    private volatile long escritos;
+    private volatile long lotes;
+    private volatile long fallosEscritura;
+    private volatile int ocupacionMaxima;
+
+    /**
+     * Crea el registro de auditoría y arranca su hilo escritor, si hay destino.
+     *
+     * @param configuracion la configuración con el destino, la capacidad y el tamaño de lote.
+     */
+    AuditoriaPersonas(ConfiguracionBBDD configuracion) {
+        this.configuracion = configuracion;
+        this.cola = new BufferCircular<>(configuracion.getCapacidadAuditoria());
+        if (configuracion.getDestinoAuditoria().equals("ninguno")) {
+            escritor = null;
+            return;
+        }
+        escritor = new Thread(this::escribirLotes, "escritor-auditoria");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    /**
+     * Devuelve el registro de auditoría compartido por toda la aplicación.
+     *
+     * @return la instancia compartida.
+     */
+    public static AuditoriaPersonas getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Registra un cambio. No espera nunca: si la cola está llena, el evento se descarta y se cuenta.
+     *
+     * @param inquilino el inquilino en cuya base de datos se hizo el cambio.
+     * @param operacion el tipo de cambio.
+     * @param antes     la persona antes del cambio, o {@code null} en un alta.
+     * @param despues   la persona después del cambio, o {@code null} en una baja.
+     */
+    public void registrar(Inquilino inquilino, EventoAuditoria.Operacion operacion, Persona antes, Persona despues) {
+        if (escritor == null || cerrado) {
+            return;
+        }
+        // Copias, porque las personas de la tabla se modifican después en la interfaz
+        EventoAuditoria evento = new EventoAuditoria(System.currentTimeMillis(), inquilino.getId(), operacion,
+                copiar(antes), copiar(despues));
+        if (!cola.ofrecer(evento)) {
+            long total = descartados.incrementAndGet();
+            if (total == 1 || total % 1_000 == 0) {
+                System.out.println("Cola de auditoría llena, " + total + " eventos descartados");
+            }
+            return;
+        }
+        encolados.incrementAndGet();
+        if (cola.getOcupacion() >= configuracion.getTamanoLoteAuditoria()) {
+            LockSupport.unpark(escritor);
+        }
+    }
+
+    /**
+     * Deja de aceptar eventos, escribe los pendientes y detiene el hilo escritor.
+     * Se debe llamar al terminar la aplicación, antes de cerrar los pools de conexiones.
+     */
+    public void cerrar() {
+        if (escritor == null || cerrado) {
+            return;
+        }
+        cerrado = true;
+        LockSupport.unpark(escritor);
+        try {
+            escritor.join(ESPERA_CIERRE_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int pendientes = cola.getOcupacion();
+        if (escritor.isAlive() || pendientes > 0) {
+            System.out.println("Auditoría cerrada con " + pendientes + " eventos sin escribir");
+        }
+    }
+
+    /**
+     * Devuelve el número de eventos aceptados en la cola.
+     *
+     * @return los eventos encolados.
+     */
+    public long getEncolados() {
+        return encolados.get();
+    }
+
+    /**
+     * Devuelve el número de eventos descartados por encontrar la cola llena.
+     *
+     * @return los eventos descartados.
+     */
+    public long getDescartados() {
+        return descartados.get();
+    }
+
+    /**
+     * Devuelve el número de eventos escritos en el destino.
+     *
+     * @return los eventos escritos.
+     */
+    public long getEscritos() {
+        return escritos;
+    }
+
+    /**
+     * Devuelve el número de lotes escritos en el destino.
+     *
+     * @return los lotes escritos.
+     */
+    public long getLotes() {
+        return lotes;
+    }
+
+    /**
+     * Devuelve el número de intentos de escritura de un lote que han fallado.
+     *
+     * @return los fallos de escritura.
+     */
+    public long getFallosEscritura() {
+        return fallosEscritura;
+    }
+
+    /**
+     * Devuelve el número de eventos en la cola pendientes de escribir.
+     *
+     * @return la ocupación actual de la cola.
+     */
+    public int getOcupacion() {
+        return cola.getOcupacion();
+    }
+
+    /**
+     * Devuelve la mayor ocupación de la cola observada por el escritor.
+     *
+     * @return la ocupación máxima de la cola.
+     */
+    public int getOcupacionMaxima() {
+        return ocupacionMaxima;
+    }
+
+    /**
+     * Bucle del hilo escritor: vacía la cola por lotes y los escribe, reintentando el mismo lote
+     * si falla. Termina cuando se cierra el registro y no queda nada pendiente.
+     */
+    private void escribirLotes() {
+        try {
+            escribirHastaCerrar();
+        } finally {
+            conexiones.values().forEach(AuditoriaPersonas::cerrarConexion);
+            conexiones.clear();
+        }
+    }
+
+    /**
+     * Vacía la cola por lotes y los escribe hasta que se cierra el registro.
+     */
+    private void escribirHastaCerrar() {
+        List<EventoAuditoria> lote = new ArrayList<>(configuracion.getTamanoLoteAuditoria());
+        long intervaloNanos = TimeUnit.MILLISECONDS.toNanos(configuracion.getIntervaloAuditoriaMs());
+        while (true) {
+            if (lote.isEmpty()) {
+                ocupacionMaxima = Math.max(ocupacionMaxima, cola.getOcupacion());
+                cola.vaciarEn(lote, configuracion.getTamanoLoteAuditoria());
+            }
+            if (lote.isEmpty()) {
+                if (cerrado) {
+                    return;
+                }
+                LockSupport.parkNanos(this, intervaloNanos);
+                continue;
+            }
+            try {
+                if (configuracion.getDestinoAuditoria().equals("tabla")) {
+                    escribirEnTabla(lote);
+                } else {
+                    escribirEnArchivo(lote);
+                }
+                lotes++;
+            } catch (IOException | SQLException e) {
+                fallosEscritura++;
+                System.out.println("No se pudo escribir la auditoría, se reintentará: " + e.getMessage());
+                if (cerrado) {
+                    return; // Al cerrar no se reintenta indefinidamente
+                }
+                LockSupport.parkNanos(this, intervaloNanos);
+            }
+        }
+    }
+
+    /**
+     * Añade un lote al archivo de auditoría, un evento JSON por línea, y lo fuerza a disco.
+     * Si se escribe, el lote queda vacío.
+     *
+     * @param lote los eventos a escribir.
+     * @throws IOException si no se puede escribir el archivo.
+     */
+    private void escribirEnArchivo(List<EventoAuditoria> lote) throws IOException {
+        StringBuilder texto = new StringBuilder(lote.size() * 160);
+        for (EventoAuditoria evento : lote) {
+            texto.append("{\"instante\":\"").append(Instant.ofEpochMilli(evento.instanteMs()))
+                    .append("\",\"inquilino\":");
+            json(texto, evento.inquilino());
+            texto.append(",\"operacion\":\"").append(evento.operacion()).append("\",\"antes\":");
+            json(texto, evento.antes());
+            texto.append(",\"despues\":");
+            json(texto, evento.despues());
+            texto.append("}\n");
+        }
+        Path archivo = configuracion.getArchivoAuditoria();
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(texto.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            canal.force(false);
+        }
+        escritos += lote.size();
+        lote.clear();
+    }
+
+    /**
+     * Inserta un lote en la tabla de auditoría, con una sentencia por lotes y una transacción por inquilino.
+     * Los eventos de cada inquilino se quitan del lote en cuanto se confirman, para que un fallo
+     * en otro inquilino no los duplique al reintentar. Si falla, la conexión del inquilino se
+     * cierra y el reintento abre otra.
+     *
+     * @param lote los eventos a escribir.
+     * @throws SQLException si falla la inserción en algún inquilino.
+     */
+    private void escribirEnTabla(List<EventoAuditoria> lote) throws SQLException {
+        Map<String, List<EventoAuditoria>> porInquilino = new LinkedHashMap<>();
+        for (EventoAuditoria evento : lote) {
+            porInquilino.computeIfAbsent(evento.inquilino(), id -> new ArrayList<>()).add(evento);
+        }
+        String consulta = "INSERT INTO PersonaAuditoria (instante, operacion, nombre_antes, apellidos_antes, edad_antes, "
+                + "nombre_despues, apellidos_despues, edad_despues) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        for (Map.Entry<String, List<EventoAuditoria>> grupo : porInquilino.entrySet()) {
+            Connection conn = conexion(grupo.getKey());
+            try (PreparedStatement pstmt = conn.prepareStatement(consulta)) {
+                pstmt.setQueryTimeout(configuracion.getTimeoutConsultaS());
+                for (EventoAuditoria evento : grupo.getValue()) {
+                    pstmt.setTimestamp(1, new Timestamp(evento.instanteMs()));
+                    pstmt.setString(2, evento.operacion().name());
+                    asignar(pstmt, 3, evento.antes());
+                    asignar(pstmt, 6, evento.despues());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conexiones.remove(grupo.getKey());
+                cerrarConexion(conn); // Sin confirmar: al cerrarla se descarta la transacción
+                throw e;
+            }
+            lote.removeIf(evento -> evento.inquilino().equals(grupo.getKey()));
+            escritos += grupo.getValue().size();
+        }
+    }
+
+    /**
+     * Devuelve la conexión propia del escritor con la base de datos de un inquilino, abriéndola si
+     * no la tiene. Se abre sin transacción automática, con la URL del principal o la del inquilino.
+     *
+     * @param inquilino el identificador del inquilino.
+     * @return la conexión.
+     * @throws SQLException si el inquilino no está configurado o no se puede conectar.
+     */
+    private Connection conexion(String inquilino) throws SQLException {
+        Connection conn = conexiones.get(inquilino);
+        if (conn != null) {
+            return conn;
+        }
+        String url = inquilino.equals(Inquilino.PREDETERMINADO.getId())
+                ? configuracion.getUrl() : configuracion.getUrlsInquilinos().get(inquilino);
+        if (url == null) {
+            throw new SQLException("Inquilino desconocido: " + inquilino);
+        }
+        conn = DriverManager.getConnection(url, configuracion.propiedadesConexion());
+        conn.setAutoCommit(false);
+        conexiones.put(inquilino, conn);
+        return conn;
+    }
+
+    /**
+     * Cierra una conexión del escritor ignorando los errores.
+     *
+     * @param conn la conexión.
+     */
+    private static void cerrarConexion(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            // La conexión ya no se va a usar
+        }
+    }
+
+    /**
+     * Asigna los tres parámetros de una imagen de persona, nulos si no hay persona.
+     *
+     * @param pstmt   la sentencia.
+     * @param indice  el índice del primer parámetro.
+     * @param persona la persona, o {@code null}.
+     * @throws SQLException si falla la asignación.
+     */
+    private static void asignar(PreparedStatement pstmt, int indice, Persona persona) throws SQLException {
+        if (persona == null) {
+            pstmt.setNull(indice, Types.VARCHAR);
+            pstmt.setNull(indice + 1, Types.VARCHAR);
+            pstmt.setNull(indice + 2, Types.INTEGER);
+        } else {
+            pstmt.setString(indice, persona.getNombre());
+            pstmt.setString(indice + 1, persona.getApellidos());
+            pstmt.setInt(indice + 2, persona.getEdad());
+        }
+    }
+
+    /**
+     * Añade una persona en JSON, o {@code null}.
+     *
+     * @param texto   el texto de destino.
+     * @param persona la persona, o {@code null}.
+     */
+    private static void json(StringBuilder texto, Persona persona) {
+        if (persona == null) {
+            texto.append("null");
+            return;
+        }
+        texto.append("{\"nombre\":");
+        json(texto, persona.getNombre());
+        texto.append(",\"apellidos\":");
+        json(texto, persona.getApellidos());
+        texto.append(",\"edad\":").append(persona.getEdad()).append('}');
+    }
+
+    /**
+     * Añade una cadena en JSON, entre comillas y con los caracteres especiales escapados, o {@code null}.
+     *
+     * @param texto  el texto de destino.
+     * @param cadena la cadena, o {@code null}.
+     */
+    private static void json(StringBuilder texto, String cadena) {
+        if (cadena == null) {
+            texto.append("null");
+            return;
+        }
+        texto.append('"');
+        for (int i = 0; i < cadena.length(); i++) {
+            char c = cadena.charAt(i);
+            switch (c) {
+                case '"' -> texto.append("\\\"");
+                case '\\' -> texto.append("\\\\");
+                case '\n' -> texto.append("\\n");
+                case '\r' -> texto.append("\\r");
+                case '\t' -> texto.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        texto.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        texto.append(c);
+                    }
+                }
+            }
+        }
+        texto.append('"');
+    }
+
+    /**
+     * Copia una persona para que el evento no cambie si se modifica el original.
+     *
+     * @param persona la persona, o {@code null}.
+     * @return la copia, o {@code null}.
+     */
+    private static Persona copiar(Persona persona) {
+        return persona == null ? null : new Persona(persona.getNombre(), persona.getApellidos(), persona.getEdad());
+    }
+}
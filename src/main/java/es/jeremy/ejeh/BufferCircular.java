@@ -0,0 +1,110 @@
+package es.jeremy.ejeh;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Cola circular acotada sin bloqueos, para muchos productores y un único consumidor.
+ * <p>
+ * Cada ranura lleva un número de secuencia que indica si está libre para el productor de una
+ * vuelta o llena para el consumidor. Los productores reservan su posición con una sola
+ * operación {@code compareAndSet} y nunca esperan: si la cola está llena, {@link #ofrecer(Object)}
+ * devuelve {@code false} de inmediato. El consumidor no usa ninguna operación atómica compuesta.
+ * </p>
+ *
+ * @param <T> el tipo de los elementos.
+ */
+public class BufferCircular<T> {
+    private final AtomicReferenceArray<T> ranuras;
+    private final AtomicLongArray secuencias;
+    private final int mascara;
+    private final AtomicLong cabeza = new AtomicLong(); // Siguiente posición que reservará un productor
+    private volatile long cola;                          // Siguiente posición que leerá el consumidor
+
+    /**
+     * Crea una cola vacía.
+     *
+     * @param capacidad el número mínimo de elementos que caben; se redondea a la siguiente potencia de dos.
+     */
+    public BufferCircular(int capacidad) {
+        int tamano = Integer.highestOneBit(Math.max(1, capacidad - 1)) << 1; // Al menos dos ranuras
+        ranuras = new AtomicReferenceArray<>(tamano);
+        secuencias = new AtomicLongArray(tamano);
+        for (int i = 0; i < tamano; i++) {
+            secuencias.set(i, i);
+        }
+        mascara = tamano - 1;
+    }
+
+    /**
+     * Añade un elemento al final de la cola sin esperar. Se puede llamar desde cualquier hilo.
+     *
+     * @param elemento el elemento a añadir.
+     * @return {@code true} si se ha añadido, {@code false} si la cola estaba llena.
+     */
+    public boolean ofrecer(T elemento) {
+        long posicion = cabeza.get();
+        while (true) {
+            int indice = (int) posicion & mascara;
+            long diferencia = secuencias.get(indice) - posicion;
+            if (diferencia == 0) {
+                if (cabeza.compareAndSet(posicion, posicion + 1)) {
+                    ranuras.set(indice, elemento);
+                    secuencias.set(indice, posicion + 1); // Publica el elemento para el consumidor
+                    return true;
+                }
+                posicion = cabeza.get();
+            } else if (diferencia < 0) {
+                return false; // La ranura aún tiene el elemento de la vuelta anterior: cola llena
+            } else {
+                posicion = cabeza.get(); // Otro productor se ha adelantado
+            }
+        }
+    }
+
+    /**
+     * Saca hasta {@code maximo} elementos del principio de la cola. Solo se debe llamar desde el
+     * hilo consumidor.
+     *
+     * @param destino la lista donde se añaden los elementos, en orden.
+     * @param maximo  el número máximo de elementos a sacar.
+     * @return el número de elementos sacados.
+     */
+    public int vaciarEn(List<T> destino, int maximo) {
+        long posicion = cola;
+        int sacados = 0;
+        while (sacados < maximo) {
+            int indice = (int) posicion & mascara;
+            if (secuencias.get(indice) != posicion + 1) {
+                break; // Vacía, o el productor de esta ranura aún no ha publicado
+            }
+            destino.add(ranuras.get(indice));
+            ranuras.set(indice, null);
+            secuencias.set(indice, posicion + mascara + 1); // Libre para la siguiente vuelta
+            posicion++;
+            sacados++;
+        }
+        cola = posicion;
+        return sacados;
+    }
+
+    /**
+     * Devuelve el número aproximado de elementos en la cola.
+     *
+     * @return los elementos en la cola.
+     */
+    public int getOcupacion() {
+        return (int) Math.max(0, cabeza.get() - cola);
+    }
+
+    /**
+     * Devuelve el número máximo de elementos que caben en la cola.
+     *
+     * @return la capacidad de la cola.
+     */
+    public int getCapacidad() {
+        return mascara + 1;
+    }
+}
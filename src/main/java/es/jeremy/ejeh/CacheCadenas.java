@@ -0,0 +1,46 @@
+package es.jeremy.ejeh;
+
+/**
+ * Caché acotada para deduplicar cadenas repetidas, como nombres y apellidos frecuentes.
+ * <p>
+ * Es una tabla de acceso directo de tamaño fijo: cada cadena ocupa la posición que le
+ * corresponde por su hash y sustituye a la que hubiera. Así la memoria está acotada, no hay
+ * reservas al consultar y los valores repetidos de un listado grande comparten una única
+ * instancia en lugar de una copia por fila. No es segura entre hilos; cada carga usa la suya.
+ * </p>
+ */
+public class CacheCadenas {
+    private final String[] tabla;
+    private final int mascara;
+
+    /**
+     * Crea una caché cuyo tamaño es la potencia de dos igual o superior a la capacidad indicada.
+     *
+     * @param capacidad el número aproximado de cadenas distintas que se quieren conservar.
+     */
+    public CacheCadenas(int capacidad) {
+        int tamano = Integer.highestOneBit(Math.max(16, capacidad - 1)) << 1;
+        tabla = new String[tamano];
+        mascara = tamano - 1;
+    }
+
+    /**
+     * Devuelve la instancia guardada igual a la cadena indicada o, si no la hay, guarda y devuelve esta.
+     *
+     * @param cadena la cadena a deduplicar, puede ser {@code null}.
+     * @return una cadena igual a la indicada, compartida si ya estaba en la caché.
+     */
+    public String deduplicar(String cadena) {
+        if (cadena == null) {
+            return null;
+        }
+        int hash = cadena.hashCode();
+        int indice = (hash ^ (hash >>> 16)) & mascara;
+        String guardada = tabla[indice];
+        if (cadena.equals(guardada)) {
+            return guardada;
+        }
+        tabla[indice] = cadena;
+        return cadena;
+    }
+}
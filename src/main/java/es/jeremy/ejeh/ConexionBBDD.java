@@ -1,10 +1,7 @@
 package es.jeremy.ejeh;
 
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.Properties;
 
 /**
  * Clase que gestiona la conexión a una base de datos MariaDB.
@@ -15,20 +12,68 @@ import java.util.Properties;
  * </p>
  *
  * <p>
- * La clase carga el driver de MariaDB, establece una conexión con la base de datos
- * y proporciona información de depuración sobre la base de datos conectada.
+ * La clase carga el driver de MariaDB y toma una conexión del pool compartido, configurado
+ * según {@link ConfiguracionBBDD}. Al cerrarse, la conexión vuelve al pool para reutilizarse.
+ * </p>
+ *
+ * <p>
+ * El constructor devuelve siempre una conexión al servidor principal, apta para escribir.
+ * Las consultas de solo lectura pueden usar {@link #lectura()}, que las reparte entre las
+ * réplicas mediante {@link EnrutadorLecturas}. Tras confirmar una escritura se debe llamar a
+ * {@link #registrarEscritura()} para que las lecturas siguientes vean el cambio.
+ * </p>
+ *
+ * <p>
+ * Las conexiones de un {@link Inquilino} distinto del predeterminado se toman del pool de ese
+ * inquilino, que gestiona {@link GestorInquilinos}. Toda conexión ocupa además un turno del
+ * planificador de inquilinos mientras está abierta.
  * </p>
  */
 public class ConexionBBDD implements AutoCloseable {
+    private static PoolConexiones pool; // Pool del servidor principal, se recrea al cambiar la configuración
+
     private Connection conexion;
+    private ResilienciaBBDD resiliencia; // Cortocircuito del servidor que ha servido la conexión
+    private final Inquilino inquilino;
+    private final boolean escritura; // Indica si la conexión es del principal y puede escribir
+    private boolean turnoDevuelto;
 
     /**
-     * Constructor que inicializa la conexión a la base de datos MariaDB.
+     * Constructor que obtiene una conexión a la base de datos MariaDB.
+     * <p>
+     * La conexión se obtiene a través de {@link ResilienciaBBDD}, que reintenta los fallos
+     * transitorios y falla de inmediato mientras la base de datos no está disponible.
+     * </p>
      *
      * @throws SQLException si no se puede cargar el driver o si falla la conexión
      *                      a la base de datos.
      */
     public ConexionBBDD() throws SQLException {
+        this(Inquilino.PREDETERMINADO, true);
+    }
+
+    /**
+     * Constructor que obtiene una conexión a la base de datos de un inquilino.
+     *
+     * @param inquilino el inquilino cuya base de datos se usa.
+     * @throws SQLException si no se puede cargar el driver, si el inquilino no está configurado,
+     *                      si no hay turno libre o si falla la conexión.
+     */
+    public ConexionBBDD(Inquilino inquilino) throws SQLException {
+        this(inquilino, true);
+    }
+
+    /**
+     * Constructor que obtiene una conexión del principal o, para lecturas, del enrutador de réplicas.
+     * Para los demás inquilinos la conexión sale siempre de su pool.
+     *
+     * @param inquilino el inquilino cuya base de datos se usa.
+     * @param escritura {@code true} para una conexión del principal, {@code false} para lectura.
+     * @throws SQLException si no se puede cargar el driver, si no hay turno libre o si falla la conexión.
+     */
+    private ConexionBBDD(Inquilino inquilino, boolean escritura) throws SQLException {
+        this.inquilino = inquilino;
+        this.escritura = escritura;
         try {
             // Cargar el driver de MariaDB
             Class.forName("org.mariadb.jdbc.Driver");
@@ -37,24 +82,76 @@ public class ConexionBBDD implements AutoCloseable {
             throw new SQLException("No se pudo cargar el driver de MariaDB", e);
         }
 
-        // Configurar los parámetros de la conexión
-        Properties connConfig = new Properties();
-        connConfig.setProperty("user", "root");  // Usuario de la BD
-        connConfig.setProperty("password", "myPass");  // Contraseña de la BD
+        GestorInquilinos.entrar(inquilino);
+        try {
+            if (!inquilino.esPredeterminado()) {
+                PoolConexiones poolInquilino = GestorInquilinos.getPool(inquilino);
+                conexion = poolInquilino.obtener();
+                resiliencia = poolInquilino.getResiliencia();
+            } else if (escritura) {
+                conexion = getPool().obtener();
+                resiliencia = ResilienciaBBDD.getInstancia();
+            } else {
+                EnrutadorLecturas.Lectura lectura = EnrutadorLecturas.obtenerLectura();
+                conexion = lectura.conexion();
+                resiliencia = lectura.pool().getResiliencia();
+            }
+        } catch (SQLException | RuntimeException e) {
+            GestorInquilinos.salir(inquilino);
+            throw e;
+        }
+    }
 
-        // Establecer la conexión a la base de datos MariaDB
-        String url = "jdbc:mariadb://localhost:3310/personas?serverTimezone=Europe/Madrid";
-        conexion = DriverManager.getConnection(url, connConfig);
-        conexion.setAutoCommit(true);
+    /**
+     * Obtiene una conexión para consultas de solo lectura, de una réplica si hay alguna disponible.
+     *
+     * @return la conexión de lectura.
+     * @throws SQLException si no se puede cargar el driver o si falla la conexión.
+     */
+    public static ConexionBBDD lectura() throws SQLException {
+        return new ConexionBBDD(Inquilino.PREDETERMINADO, false);
+    }
 
-        // Información de la base de datos para depuración
-        DatabaseMetaData databaseMetaData = conexion.getMetaData();
-        System.out.println("--- Datos de conexión ------------------------------------------");
-        System.out.printf("Base de datos: %s%n", databaseMetaData.getDatabaseProductName());
-        System.out.printf("Versión: %s%n", databaseMetaData.getDatabaseProductVersion());
-        System.out.printf("Driver: %s%n", databaseMetaData.getDriverName());
-        System.out.printf("Versión: %s%n", databaseMetaData.getDriverVersion());
-        System.out.println("----------------------------------------------------------------");
+    /**
+     * Obtiene una conexión para consultas de solo lectura de un inquilino. Solo el inquilino
+     * predeterminado tiene réplicas; los demás leen de su propio servidor.
+     *
+     * @param inquilino el inquilino cuya base de datos se usa.
+     * @return la conexión de lectura.
+     * @throws SQLException si no se puede cargar el driver, si no hay turno libre o si falla la conexión.
+     */
+    public static ConexionBBDD lectura(Inquilino inquilino) throws SQLException {
+        return new ConexionBBDD(inquilino, false);
+    }
+
+    /**
+     * Devuelve el pool del servidor principal. Si la configuración se ha recargado desde que se
+     * creó, lo sustituye por uno nuevo; las conexiones del anterior se cierran al devolverse.
+     *
+     * @return el pool de conexiones vigente.
+     */
+    static synchronized PoolConexiones getPool() {
+        ConfiguracionBBDD configuracion = ConfiguracionBBDD.getActual();
+        if (pool == null || pool.getConfiguracion() != configuracion) {
+            if (pool != null) {
+                pool.cerrar();
+            }
+            pool = new PoolConexiones("principal", configuracion.getUrl(), configuracion, ResilienciaBBDD.getInstancia());
+        }
+        return pool;
+    }
+
+    /**
+     * Cierra los pools de conexiones compartidos, del principal, de las réplicas y de los inquilinos.
+     * Se debe llamar al terminar la aplicación.
+     */
+    public static synchronized void cerrarPool() {
+        if (pool != null) {
+            pool.cerrar();
+            pool = null;
+        }
+        EnrutadorLecturas.cerrar();
+        GestorInquilinos.cerrar();
     }
 
     /**
@@ -67,10 +164,34 @@ public class ConexionBBDD implements AutoCloseable {
     }
 
     /**
-     * Cierra la conexión a la base de datos.
+     * Devuelve el cortocircuito del servidor que ha servido la conexión: el de la réplica en una
+     * lectura enviada a una réplica, y si no el del principal o el del inquilino. Los errores de
+     * las sentencias ejecutadas con esta conexión se deben registrar en él.
+     *
+     * @return el cortocircuito del servidor de la conexión.
+     */
+    public ResilienciaBBDD getResiliencia() {
+        return resiliencia;
+    }
+
+    /**
+     * Avisa al enrutador de que se ha confirmado una escritura con esta conexión, para que las
+     * siguientes lecturas se hagan en el principal y vean el cambio. Se debe llamar solo después
+     * de que la sentencia o la transacción hayan modificado filas y se hayan confirmado; las
+     * conexiones de lectura y las de otros inquilinos, que no tienen réplicas, no hacen nada.
+     */
+    public void registrarEscritura() {
+        if (escritura && inquilino.esPredeterminado()) {
+            EnrutadorLecturas.registrarEscritura();
+        }
+    }
+
+    /**
+     * Devuelve la conexión al pool.
      * <p>
      * Este método se llama automáticamente al salir de un bloque try-with-resources.
-     * Si la conexión ya está cerrada, no hace nada.
+     * Si la conexión ya se ha devuelto, no hace nada. El turno del inquilino se devuelve después
+     * de la conexión.
      * </p>
      */
     @Override
@@ -78,10 +199,14 @@ public class ConexionBBDD implements AutoCloseable {
         try {
             if (conexion != null && !conexion.isClosed()) {
                 conexion.close();
-                System.out.println("Conexión cerrada");
             }
         } catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            if (!turnoDevuelto) {
+                turnoDevuelto = true;
+                GestorInquilinos.salir(inquilino);
+            }
         }
     }
 }
@@ -0,0 +1,631 @@
+package es.jeremy.ejeh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+/**
+ * Configuración de la conexión a la base de datos.
+ * <p>
+ * Los valores se leen, por orden de prioridad creciente, de:
+ * </p>
+ * <ol>
+ *     <li>el archivo {@code bbdd.properties} incluido en la aplicación, con los valores por defecto;</li>
+ *     <li>un archivo externo indicado por la variable de entorno {@code EJEH_CONFIG}, la propiedad de
+ *     sistema {@code ejeh.config} o, si existe, {@code ./bbdd.properties};</li>
+ *     <li>variables de entorno con el prefijo {@code EJEH_} y la clave en mayúsculas con los puntos
+ *     cambiados por guiones bajos (por ejemplo {@code EJEH_POOL_TAMANOMAXIMO}).</li>
+ * </ol>
+ * <p>
+ * La configuración se valida al cargarse. Es inmutable: {@link #recargar()} crea una nueva
+ * configuración y solo la publica si es válida, de modo que un archivo erróneo nunca deja la
+ * aplicación sin configuración.
+ * </p>
+ */
+public class ConfiguracionBBDD {
+
+    private static final String PREFIJO_DRIVER = "driver.";
+    private static final String PREFIJO_INQUILINO = "inquilino.";
+    private static final Pattern IDENTIFICADOR = Pattern.compile("[A-Za-z0-9_-]+");
+    private static final String PREFIJO_ENTORNO = "EJEH_";
+
+    private static volatile ConfiguracionBBDD actual;
+
+    private final String url;
+    private final String usuario;
+    private final String password;
+    private final List<String> replicas;
+    private final long ventanaLecturaPropiaMs;
+    private final int tamanoMaximoPool;
+    private final long esperaMaximaPoolMs;
+    private final int fetchSize;
+    private final int maximoSuscripciones;
+    private final int inactividadSuscripcionS;
+    private final int timeoutConexionMs;
+    private final int timeoutSocketMs;
+    private final int timeoutConsultaS;
+    private final int reintentos;
+    private final long esperaBaseMs;
+    private final long esperaMaximaMs;
+    private final int umbralFallos;
+    private final long intervaloSondeoMs;
+    private final Map<String, String> urlsInquilinos;
+    private final int tamanoPoolInquilino;
+    private final int concurrenciaMaxima;
+    private final long inactividadInquilinoMs;
+    private final String destinoAuditoria;
+    private final Path archivoAuditoria;
+    private final int capacidadAuditoria;
+    private final int tamanoLoteAuditoria;
+    private final long intervaloAuditoriaMs;
+    private final Properties opcionesDriver;
+
+    /**
+     * Crea una configuración a partir de un conjunto de propiedades, validando sus valores.
+     *
+     * @param propiedades las propiedades ya combinadas de todas las fuentes.
+     * @throws IllegalArgumentException si falta algún valor obligatorio o alguno no es válido.
+     */
+    ConfiguracionBBDD(Properties propiedades) {
+        url = obligatorio(propiedades, "bbdd.url");
+        if (!url.startsWith("jdbc:mariadb:")) {
+            throw new IllegalArgumentException("bbdd.url debe ser una URL jdbc:mariadb: " + url);
+        }
+        usuario = obligatorio(propiedades, "bbdd.usuario");
+        password = propiedades.getProperty("bbdd.password", "");
+        replicas = leerLista(propiedades.getProperty("bbdd.replicas", ""));
+        for (String replica : replicas) {
+            if (!replica.startsWith("jdbc:mariadb:")) {
+                throw new IllegalArgumentException("bbdd.replicas debe contener URL jdbc:mariadb: " + replica);
+            }
+        }
+        ventanaLecturaPropiaMs = entero(propiedades, "replicas.ventanaLecturaPropiaMs", 0, 600_000);
+        tamanoMaximoPool = entero(propiedades, "pool.tamanoMaximo", 1, 1_000);
+        esperaMaximaPoolMs = entero(propiedades, "pool.esperaMaximaMs", 0, 600_000);
+        fetchSize = entero(propiedades, "consulta.fetchSize", 0, 100_000);
+        maximoSuscripciones = entero(propiedades, "publicador.maximoSuscripciones", 1, 1_000);
+        inactividadSuscripcionS = entero(propiedades, "publicador.inactividadMaximaS", 1, 86_400);
+        timeoutConexionMs = entero(propiedades, "timeout.conexionMs", 1, 600_000);
+        timeoutSocketMs = entero(propiedades, "timeout.socketMs", 0, 3_600_000);
+        timeoutConsultaS = entero(propiedades, "timeout.consultaS", 0, 3_600);
+        reintentos = entero(propiedades, "resiliencia.reintentos", 0, 20);
+        esperaBaseMs = entero(propiedades, "resiliencia.esperaBaseMs", 1, 60_000);
+        esperaMaximaMs = entero(propiedades, "resiliencia.esperaMaximaMs", 1, 600_000);
+        umbralFallos = entero(propiedades, "resiliencia.umbralFallos", 1, 1_000);
+        intervaloSondeoMs = entero(propiedades, "resiliencia.intervaloSondeoMs", 100, 600_000);
+        if (esperaMaximaMs < esperaBaseMs) {
+            throw new IllegalArgumentException("resiliencia.esperaMaximaMs no puede ser menor que resiliencia.esperaBaseMs");
+        }
+
+        tamanoPoolInquilino = entero(propiedades, "inquilinos.tamanoPool", 1, 1_000);
+        concurrenciaMaxima = entero(propiedades, "inquilinos.concurrenciaMaxima", 1, 10_000);
+        inactividadInquilinoMs = entero(propiedades, "inquilinos.inactividadMaximaMs", 1_000, 86_400_000);
+        urlsInquilinos = leerInquilinos(propiedades, url);
+
+        destinoAuditoria = obligatorio(propiedades, "auditoria.destino");
+        if (!List.of("archivo", "tabla", "ninguno").contains(destinoAuditoria)) {
+            throw new IllegalArgumentException("auditoria.destino debe ser archivo, tabla o ninguno: " + destinoAuditoria);
+        }
+        String archivo = propiedades.getProperty("auditoria.archivo", "").trim();
+        archivoAuditoria = archivo.isEmpty()
+                ? Path.of(System.getProperty("user.home"), ".ejeh", "auditoria", "personas.log")
+                : Path.of(archivo);
+        capacidadAuditoria = entero(propiedades, "auditoria.capacidad", 16, 1 << 20);
+        tamanoLoteAuditoria = entero(propiedades, "auditoria.tamanoLote", 1, 10_000);
+        intervaloAuditoriaMs = entero(propiedades, "auditoria.intervaloMs", 10, 60_000);
+
+        opcionesDriver = new Properties();
+        for (String clave : propiedades.stringPropertyNames()) {
+            if (clave.startsWith(PREFIJO_DRIVER)) {
+                opcionesDriver.setProperty(clave.substring(PREFIJO_DRIVER.length()), propiedades.getProperty(clave).trim());
+            }
+        }
+        for (String opcion : List.of("useServerPrepStmts", "cachePrepStmts", "useBulkStmts", "useCompression")) {
+            String valor = opcionesDriver.getProperty(opcion);
+            if (valor != null && !valor.equals("true") && !valor.equals("false")) {
+                throw new IllegalArgumentException("driver." + opcion + " debe ser true o false: " + valor);
+            }
+        }
+    }
+
+    /**
+     * Devuelve la configuración vigente, cargándola la primera vez.
+     *
+     * @return la configuración vigente.
+     * @throws IllegalArgumentException si la configuración inicial no es válida.
+     */
+    public static ConfiguracionBBDD getActual() {
+        ConfiguracionBBDD configuracion = actual;
+        if (configuracion == null) {
+            synchronized (ConfiguracionBBDD.class) {
+                if (actual == null) {
+                    actual = cargar();
+                }
+                configuracion = actual;
+            }
+        }
+        return configuracion;
+    }
+
+    /**
+     * Vuelve a leer la configuración de todas sus fuentes y, si es válida, la publica como vigente.
+     * Las conexiones nuevas usarán la nueva configuración.
+     *
+     * @return {@code true} si se ha cargado la nueva configuración, {@code false} si no era válida
+     * y se mantiene la anterior.
+     */
+    public static boolean recargar() {
+        try {
+            ConfiguracionBBDD nueva = cargar();
+            synchronized (ConfiguracionBBDD.class) {
+                actual = nueva;
+            }
+            System.out.println("Configuración de la base de datos recargada");
+            return true;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Configuración no válida, se mantiene la anterior: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Vigila el archivo de configuración externo y recarga la configuración cada vez que cambia.
+     * No hace nada si no hay archivo externo.
+     */
+    public static void vigilarArchivoExterno() {
+        Path externo = archivoExterno();
+        if (externo == null) {
+            return;
+        }
+        Path archivo = externo.toAbsolutePath();
+        Thread vigilante = new Thread(() -> {
+            try (WatchService watcher = archivo.getFileSystem().newWatchService()) {
+                archivo.getParent().register(watcher, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+                while (true) {
+                    WatchKey key = watcher.take();
+                    for (WatchEvent<?> evento : key.pollEvents()) {
+                        if (archivo.getFileName().equals(evento.context())) {
+                            recargar();
+                        }
+                    }
+                    if (!key.reset()) {
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("No se puede vigilar el archivo de configuración: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "vigilante-configuracion");
+        vigilante.setDaemon(true);
+        vigilante.start();
+    }
+
+    /**
+     * Lee y combina todas las fuentes de configuración.
+     *
+     * @return la configuración validada.
+     * @throws IllegalArgumentException si no se puede leer alguna fuente o algún valor no es válido.
+     */
+    private static ConfiguracionBBDD cargar() {
+        Properties propiedades = new Properties();
+        try (InputStream in = ConfiguracionBBDD.class.getResourceAsStream("bbdd.properties")) {
+            if (in != null) {
+                propiedades.load(in);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("No se pudo leer la configuración por defecto", e);
+        }
+
+        Path externo = archivoExterno();
+        if (externo != null) {
+            try (Reader reader = Files.newBufferedReader(externo, StandardCharsets.UTF_8)) {
+                propiedades.load(reader);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("No se pudo leer el archivo de configuración " + externo, e);
+            }
+        }
+
+        Map<String, String> entorno = System.getenv();
+        for (String clave : propiedades.stringPropertyNames()) {
+            String valor = entorno.get(nombreVariableEntorno(clave));
+            if (valor != null) {
+                propiedades.setProperty(clave, valor);
+            }
+        }
+        return new ConfiguracionBBDD(propiedades);
+    }
+
+    /**
+     * Devuelve el archivo de configuración externo, si hay alguno.
+     *
+     * @return la ruta del archivo externo, o {@code null} si no se ha indicado ni existe el archivo local.
+     */
+    static Path archivoExterno() {
+        String ruta = System.getenv(PREFIJO_ENTORNO + "CONFIG");
+        if (ruta == null) {
+            ruta = System.getProperty("ejeh.config");
+        }
+        if (ruta != null) {
+            return Path.of(ruta);
+        }
+        Path local = Path.of("bbdd.properties");
+        return Files.isRegularFile(local) ? local : null;
+    }
+
+    /**
+     * Convierte una clave de configuración en el nombre de la variable de entorno que la sobrescribe.
+     *
+     * @param clave la clave, por ejemplo {@code pool.tamanoMaximo}.
+     * @return el nombre de la variable, por ejemplo {@code EJEH_POOL_TAMANOMAXIMO}.
+     */
+    static String nombreVariableEntorno(String clave) {
+        return PREFIJO_ENTORNO + clave.toUpperCase().replace('.', '_');
+    }
+
+    /**
+     * Devuelve el valor de una clave obligatoria.
+     *
+     * @param propiedades las propiedades de configuración.
+     * @param clave       la clave a leer.
+     * @return el valor sin espacios al principio ni al final.
+     * @throws IllegalArgumentException si la clave no tiene valor.
+     */
+    private static String obligatorio(Properties propiedades, String clave) {
+        String valor = propiedades.getProperty(clave);
+        if (valor == null || valor.isBlank()) {
+            throw new IllegalArgumentException("Falta el valor obligatorio " + clave);
+        }
+        return valor.trim();
+    }
+
+    /**
+     * Devuelve el valor entero de una clave obligatoria, comprobando que está dentro de un rango.
+     *
+     * @param propiedades las propiedades de configuración.
+     * @param clave       la clave a leer.
+     * @param minimo      el valor mínimo permitido.
+     * @param maximo      el valor máximo permitido.
+     * @return el valor entero.
+     * @throws IllegalArgumentException si el valor falta, no es un número o está fuera del rango.
+     */
+    private static int entero(Properties propiedades, String clave, int minimo, int maximo) {
+        String valor = obligatorio(propiedades, clave);
+        try {
+            int numero = Integer.parseInt(valor);
+            if (numero < minimo || numero > maximo) {
+                throw new IllegalArgumentException(clave + " debe estar entre " + minimo + " y " + maximo + ": " + numero);
+            }
+            return numero;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(clave + " debe ser un número entero: " + valor);
+        }
+    }
+
+    /**
+     * Separa una lista de valores separados por comas, descartando los vacíos.
+     *
+     * @param valor el texto con los valores.
+     * @return la lista inmutable de valores.
+     */
+    private static List<String> leerLista(String valor) {
+        List<String> elementos = new ArrayList<>();
+        for (String elemento : valor.split(",")) {
+            if (!elemento.isBlank()) {
+                elementos.add(elemento.trim());
+            }
+        }
+        return Collections.unmodifiableList(elementos);
+    }
+
+    /**
+     * Lee los inquilinos declarados con claves {@code inquilino.<id>.url}, para un servidor propio,
+     * o {@code inquilino.<id>.esquema}, para otro esquema del servidor principal.
+     *
+     * @param propiedades  las propiedades de configuración.
+     * @param urlPrincipal la URL del servidor principal, base de los inquilinos que solo indican esquema.
+     * @return la URL JDBC de cada inquilino, por identificador.
+     * @throws IllegalArgumentException si algún inquilino no tiene un identificador, URL o esquema válidos.
+     */
+    private static Map<String, String> leerInquilinos(Properties propiedades, String urlPrincipal) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (String clave : propiedades.stringPropertyNames()) {
+            if (!clave.startsWith(PREFIJO_INQUILINO)) {
+                continue;
+            }
+            String resto = clave.substring(PREFIJO_INQUILINO.length());
+            int punto = resto.lastIndexOf('.');
+            String id = punto < 0 ? "" : resto.substring(0, punto);
+            String tipo = resto.substring(punto + 1);
+            String valor = obligatorio(propiedades, clave);
+            if (!IDENTIFICADOR.matcher(id).matches() || id.equals(Inquilino.PREDETERMINADO.getId())) {
+                throw new IllegalArgumentException("Identificador de inquilino no válido en " + clave);
+            }
+            String urlInquilino = switch (tipo) {
+                case "url" -> valor;
+                case "esquema" -> {
+                    if (!IDENTIFICADOR.matcher(valor).matches()) {
+                        throw new IllegalArgumentException(clave + " no es un nombre de esquema válido: " + valor);
+                    }
+                    yield urlPrincipal.replaceFirst("^(jdbc:mariadb://[^/?]+)/?[^?]*", "$1/" + valor);
+                }
+                default -> throw new IllegalArgumentException("Clave de inquilino desconocida: " + clave);
+            };
+            if (!urlInquilino.startsWith("jdbc:mariadb:")) {
+                throw new IllegalArgumentException(clave + " debe ser una URL jdbc:mariadb: " + urlInquilino);
+            }
+            if (urls.put(id, urlInquilino) != null) {
+                throw new IllegalArgumentException("El inquilino " + id + " indica a la vez URL y esquema");
+            }
+        }
+        return Collections.unmodifiableMap(urls);
+    }
+
+    /**
+     * Construye las propiedades que se pasan al driver al abrir una conexión: credenciales,
+     * tiempos máximos y opciones de rendimiento.
+     *
+     * @return una copia nueva de las propiedades de conexión.
+     */
+    public Properties propiedadesConexion() {
+        Properties connConfig = new Properties();
+        connConfig.putAll(opcionesDriver);
+        connConfig.setProperty("user", usuario);
+        connConfig.setProperty("password", password);
+        connConfig.setProperty("connectTimeout", String.valueOf(timeoutConexionMs));
+        connConfig.setProperty("socketTimeout", String.valueOf(timeoutSocketMs));
+        return connConfig;
+    }
+
+    // Getters
+
+    /**
+     * Devuelve la URL JDBC del servidor principal.
+     *
+     * @return la URL JDBC del servidor principal
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Devuelve el usuario de la base de datos.
+     *
+     * @return el usuario de la base de datos
+     */
+    public String getUsuario() {
+        return usuario;
+    }
+
+    /**
+     * Devuelve las URL JDBC de las réplicas de lectura, vacía si no hay.
+     *
+     * @return las URL JDBC de las réplicas de lectura, vacía si no hay
+     */
+    public List<String> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Devuelve el tiempo, en milisegundos, durante el que las lecturas van al servidor principal
+     * después de una escritura.
+     *
+     * @return el tiempo durante el que las lecturas van al servidor principal después de una escritura
+     */
+    public long getVentanaLecturaPropiaMs() {
+        return ventanaLecturaPropiaMs;
+    }
+
+    /**
+     * Devuelve la URL JDBC de cada inquilino configurado, por identificador.
+     *
+     * @return la URL JDBC de cada inquilino configurado, vacía si no hay
+     */
+    public Map<String, String> getUrlsInquilinos() {
+        return urlsInquilinos;
+    }
+
+    /**
+     * Devuelve el número máximo de conexiones abiertas por el pool de cada inquilino.
+     *
+     * @return el número máximo de conexiones abiertas por el pool de cada inquilino
+     */
+    public int getTamanoPoolInquilino() {
+        return tamanoPoolInquilino;
+    }
+
+    /**
+     * Devuelve el número máximo de operaciones simultáneas con la base de datos, sumando todos los inquilinos.
+     *
+     * @return el número máximo de operaciones simultáneas con la base de datos
+     */
+    public int getConcurrenciaMaxima() {
+        return concurrenciaMaxima;
+    }
+
+    /**
+     * Devuelve el tiempo, en milisegundos, sin uso tras el que se cierra el pool de un inquilino.
+     *
+     * @return el tiempo sin uso tras el que se cierra el pool de un inquilino
+     */
+    public long getInactividadInquilinoMs() {
+        return inactividadInquilinoMs;
+    }
+
+    /**
+     * Devuelve dónde se escribe el registro de auditoría: {@code archivo}, {@code tabla} o {@code ninguno}.
+     *
+     * @return dónde se escribe el registro de auditoría
+     */
+    public String getDestinoAuditoria() {
+        return destinoAuditoria;
+    }
+
+    /**
+     * Devuelve el archivo de solo añadir donde se escribe el registro de auditoría.
+     *
+     * @return el archivo donde se escribe el registro de auditoría
+     */
+    public Path getArchivoAuditoria() {
+        return archivoAuditoria;
+    }
+
+    /**
+     * Devuelve el número máximo de eventos de auditoría pendientes de escribir.
+     *
+     * @return el número máximo de eventos de auditoría pendientes de escribir
+     */
+    public int getCapacidadAuditoria() {
+        return capacidadAuditoria;
+    }
+
+    /**
+     * Devuelve el número máximo de eventos de auditoría que se escriben de una vez.
+     *
+     * @return el número máximo de eventos de auditoría que se escriben de una vez
+     */
+    public int getTamanoLoteAuditoria() {
+        return tamanoLoteAuditoria;
+    }
+
+    /**
+     * Devuelve el intervalo máximo, en milisegundos, entre dos escrituras del registro de auditoría.
+     *
+     * @return el intervalo máximo entre dos escrituras del registro de auditoría
+     */
+    public long getIntervaloAuditoriaMs() {
+        return intervaloAuditoriaMs;
+    }
+
+    /**
+     * Devuelve el número máximo de conexiones abiertas por pool.
+     *
+     * @return el número máximo de conexiones abiertas por pool
+     */
+    public int getTamanoMaximoPool() {
+        return tamanoMaximoPool;
+    }
+
+    /**
+     * Devuelve el tiempo máximo, en milisegundos, de espera de una conexión libre del pool.
+     *
+     * @return el tiempo máximo, en milisegundos, de espera de una conexión libre del pool
+     */
+    public long getEsperaMaximaPoolMs() {
+        return esperaMaximaPoolMs;
+    }
+
+    /**
+     * Devuelve el número de filas que se piden al servidor en cada viaje al leer resultados.
+     *
+     * @return el número de filas que se piden al servidor en cada viaje al leer resultados
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Devuelve el número máximo de suscripciones al listado de personas con una conexión abierta a la vez, por inquilino.
+     *
+     * @return el número máximo de suscripciones con una conexión abierta a la vez, por inquilino
+     */
+    public int getMaximoSuscripciones() {
+        return maximoSuscripciones;
+    }
+
+    /**
+     * Devuelve el tiempo máximo, en segundos, que el servidor espera a que una suscripción lenta lea más filas.
+     *
+     * @return el tiempo máximo que el servidor espera a que una suscripción lea más filas
+     */
+    public int getInactividadSuscripcionS() {
+        return inactividadSuscripcionS;
+    }
+
+    /**
+     * Devuelve el tiempo máximo, en milisegundos, para establecer la conexión TCP.
+     *
+     * @return el tiempo máximo, en milisegundos, para establecer la conexión TCP
+     */
+    public int getTimeoutConexionMs() {
+        return timeoutConexionMs;
+    }
+
+    /**
+     * Devuelve el tiempo máximo, en milisegundos, de espera de una respuesta en el socket.
+     *
+     * @return el tiempo máximo, en milisegundos, de espera de una respuesta en el socket
+     */
+    public int getTimeoutSocketMs() {
+        return timeoutSocketMs;
+    }
+
+    /**
+     * Devuelve el tiempo máximo, en segundos, de ejecución de una consulta.
+     *
+     * @return el tiempo máximo, en segundos, de ejecución de una consulta
+     */
+    public int getTimeoutConsultaS() {
+        return timeoutConsultaS;
+    }
+
+    /**
+     * Devuelve el número de reintentos tras un fallo de conexión.
+     *
+     * @return el número de reintentos tras un fallo de conexión
+     */
+    public int getReintentos() {
+        return reintentos;
+    }
+
+    /**
+     * Devuelve la espera inicial entre reintentos, en milisegundos.
+     *
+     * @return la espera inicial entre reintentos, en milisegundos
+     */
+    public long getEsperaBaseMs() {
+        return esperaBaseMs;
+    }
+
+    /**
+     * Devuelve la espera máxima entre reintentos, en milisegundos.
+     *
+     * @return la espera máxima entre reintentos, en milisegundos
+     */
+    public long getEsperaMaximaMs() {
+        return esperaMaximaMs;
+    }
+
+    /**
+     * Devuelve el número de fallos de conexión consecutivos que abren el circuito.
+     *
+     * @return el número de fallos de conexión consecutivos que abren el circuito
+     */
+    public int getUmbralFallos() {
+        return umbralFallos;
+    }
+
+    /**
+     * Devuelve el intervalo entre sondeos con el circuito abierto, en milisegundos.
+     *
+     * @return el intervalo entre sondeos con el circuito abierto, en milisegundos
+     */
+    public long getIntervaloSondeoMs() {
+        return intervaloSondeoMs;
+    }
+}
@@ -7,70 +7,283 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
 
 /**
  * Clase de acceso a datos (DAO) para la gestión de objetos {@code Persona} en la base de datos.
  * <p>
  * Proporciona métodos para cargar, modificar, crear y eliminar registros de la tabla "Persona".
  * </p>
+ * <p>
+ * Cada operación tiene una variante que recibe el {@link Inquilino} cuya base de datos se usa;
+ * las que no lo reciben trabajan con el inquilino predeterminado, el servidor principal.
+ * </p>
+ * <p>
+ * Las altas, modificaciones y bajas correctas se registran en {@link AuditoriaPersonas} con la
+ * imagen anterior y posterior de la fila, sin esperar a que se escriba el registro.
+ * </p>
+ * <p>
+ * Los datos que se guardan se validan y normalizan antes con {@link ValidadorPersona}: se guardan
+ * los textos normalizados, y una fila no válida se rechaza sin llegar al servidor.
+ * </p>
+ * <p>
+ * Para procesar muchas filas con memoria acotada, el listado también se puede leer como un
+ * {@link Flow.Publisher} con {@link #publicarListadoPersonas(Inquilino)}, y los cambios se pueden
+ * enviar como un flujo a un {@link SuscriptorMutaciones}.
+ * </p>
  */
 public class DaoPersona {
 
+    /**
+     * Número máximo de personas que se eliminan con una única sentencia DELETE.
+     */
+    static final int TAMANO_LOTE_ELIMINACION = 500;
+
+    /**
+     * Número de cadenas distintas que se conservan para deduplicar nombres y apellidos en una carga.
+     */
+    static final int CAPACIDAD_CACHE_CADENAS = 4096;
+
+    /**
+     * Consulta del listado completo de personas.
+     */
+    static final String CONSULTA_LISTADO = "SELECT nombre, apellidos, edad FROM Persona";
+
+    /**
+     * Sentencia de alta de una persona.
+     */
+    private static final String CONSULTA_ALTA = "INSERT INTO Persona (nombre, apellidos, edad) VALUES (?, ?, ?)";
+
+    /**
+     * Principio de la consulta que bloquea y lee un lote de personas antes de eliminarlas.
+     */
+    private static final String CONSULTA_SELECCION_LOTE = "SELECT nombre, apellidos, edad FROM Persona WHERE (nombre, apellidos) IN (";
+
+    /**
+     * Principio de la sentencia que elimina un lote de personas.
+     */
+    private static final String CONSULTA_ELIMINACION_LOTE = "DELETE FROM Persona WHERE (nombre, apellidos) IN (";
+
+    /**
+     * Sentencia de baja de una fila exacta, comparando nombre y apellidos en binario.
+     */
+    private static final String CONSULTA_ELIMINACION_EXACTA = "DELETE FROM Persona WHERE nombre = ? AND apellidos = ? AND edad = ?"
+            + " AND BINARY nombre = BINARY ? AND BINARY apellidos = BINARY ?";
+
     /**
      * Carga el listado de todas las personas desde la base de datos.
      *
      * @return una lista observable de objetos {@code Persona} cargados desde la base de datos.
      */
     public static ObservableList<Persona> cargarListadoPersonas() {
+        return cargarListadoPersonas(Inquilino.PREDETERMINADO);
+    }
+
+    /**
+     * Carga el listado de todas las personas desde la base de datos.
+     *
+     * @param inquilino el inquilino cuya base de datos se usa.
+     * @return una lista observable de objetos {@code Persona} cargados desde la base de datos.
+     */
+    public static ObservableList<Persona> cargarListadoPersonas(Inquilino inquilino) {
         ObservableList<Persona> listadoDePersonas = FXCollections.observableArrayList();
 
-        // Usar try-with-resources para manejar la conexión y los recursos
-        try (ConexionBBDD conexion = new ConexionBBDD();
-             Connection conn = conexion.getConexion();
-             PreparedStatement pstmt = conn.prepareStatement("SELECT nombre, apellidos, edad FROM Persona");
-             ResultSet rs = pstmt.executeQuery()) {
-
-            // Llenar la lista con los resultados
-            while (rs.next()) {
-                String nombre = rs.getString("nombre");
-                String apellidos = rs.getString("apellidos");
-                int edad = rs.getInt("edad");
-                Persona persona = new Persona(nombre, apellidos, edad);
-                listadoDePersonas.add(persona);
+        // Usar try-with-resources para manejar la conexión y los recursos; la lectura puede ir a una
+        // réplica, y sus errores se registran en el cortocircuito de esa réplica
+        ResilienciaBBDD resiliencia = GestorInquilinos.getResiliencia(inquilino);
+        try (ConexionBBDD conexion = ConexionBBDD.lectura(inquilino)) {
+            resiliencia = conexion.getResiliencia();
+            try (Connection conn = conexion.getConexion();
+                 PreparedStatement pstmt = conn.prepareStatement(CONSULTA_LISTADO);
+                 ResultSet rs = ejecutarConsulta(pstmt)) {
+
+                // Resolver las columnas una sola vez y llenar la lista con los resultados
+                MapeadorPersona mapeador = MapeadorPersona.para(rs, new CacheCadenas(CAPACIDAD_CACHE_CADENAS));
+                while (rs.next()) {
+                    listadoDePersonas.add(mapeador.mapear(rs));
+                }
+                resiliencia.registrarExito();
             }
         } catch (SQLException e) {
+            resiliencia.registrarError(e);
             System.out.println("Error al cargar listado de personas: " + e.getMessage());
         }
         return listadoDePersonas;
     }
 
+    /**
+     * Publica el listado de todas las personas sin cargarlo en memoria.
+     *
+     * @return un publicador que lee las personas según las pida cada suscriptor.
+     * @see #publicarListadoPersonas(Inquilino)
+     */
+    public static Flow.Publisher<Persona> publicarListadoPersonas() {
+        return publicarListadoPersonas(Inquilino.PREDETERMINADO);
+    }
+
+    /**
+     * Publica el listado de todas las personas sin cargarlo en memoria.
+     * <p>
+     * Cada suscriptor recibe su propia consulta, que solo avanza cuando pide más filas: mientras no
+     * hay demanda el cursor se detiene y el servidor no envía más de {@code consulta.fetchSize}
+     * filas por adelantado. La conexión se abre con la primera petición y se cierra al terminar,
+     * al fallar o al cancelar la suscripción, así que un suscriptor lento la retiene mientras tanto;
+     * por eso solo {@code publicador.maximoSuscripciones} suscripciones por inquilino pueden tener
+     * una conexión abierta a la vez, y las demás esperan su turno.
+     * </p>
+     *
+     * @param inquilino el inquilino cuya base de datos se usa.
+     * @return un publicador que lee las personas según las pida cada suscriptor.
+     */
+    public static Flow.Publisher<Persona> publicarListadoPersonas(Inquilino inquilino) {
+        return new PublicadorPersonas(inquilino, CONSULTA_LISTADO);
+    }
+
+    /**
+     * Obtiene la suma de comprobación de la tabla Persona, que cambia con cualquier modificación
+     * de sus filas. El servidor la calcula sin enviar ninguna fila.
+     *
+     * @return la suma de comprobación, o {@code -1} si no se pudo obtener.
+     */
+    public static long checksumTabla() {
+        return checksumTabla(Inquilino.PREDETERMINADO);
+    }
+
+    /**
+     * Obtiene la suma de comprobación de la tabla Persona, que cambia con cualquier modificación
+     * de sus filas. El servidor la calcula sin enviar ninguna fila.
+     * <p>
+     * {@code CHECKSUM TABLE} recorre la tabla entera en el servidor cada vez que se llama: ahorra
+     * transferir el listado, no leerlo. Es una consulta de solo lectura y puede ir a una réplica,
+     * la misma que sirve después la carga del listado.
+     * </p>
+     *
+     * @param inquilino el inquilino cuya base de datos se usa.
+     * @return la suma de comprobación, o {@code -1} si no se pudo obtener.
+     */
+    public static long checksumTabla(Inquilino inquilino) {
+        ResilienciaBBDD resiliencia = GestorInquilinos.getResiliencia(inquilino);
+        try (ConexionBBDD conexion = ConexionBBDD.lectura(inquilino)) {
+            resiliencia = conexion.getResiliencia(); // El de la réplica, si la lectura va a una
+            try (Connection conn = conexion.getConexion();
+                 PreparedStatement pstmt = conn.prepareStatement("CHECKSUM TABLE Persona");
+                 ResultSet rs = ejecutarConsulta(pstmt)) {
+
+                resiliencia.registrarExito();
+                if (rs.next()) {
+                    long checksum = rs.getLong("Checksum");
+                    return rs.wasNull() ? -1 : checksum;
+                }
+            }
+        } catch (SQLException e) {
+            resiliencia.registrarError(e);
+            System.out.println("Error al comprobar la tabla de personas: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    /**
+     * Carga el listado de todas las personas en un almacén columnar reutilizable, sin crear un
+     * objeto {@code Persona} por fila. El almacén se vacía antes de cargar.
+     *
+     * @param destino el almacén donde se cargan las personas.
+     * @return {@code true} si la carga fue correcta, {@code false} en caso de error.
+     */
+    public static boolean cargarListadoPersonas(AlmacenColumnarPersonas destino) {
+        return cargarListadoPersonas(Inquilino.PREDETERMINADO, destino);
+    }
+
+    /**
+     * Carga el listado de todas las personas en un almacén columnar reutilizable, sin crear un
+     * objeto {@code Persona} por fila. El almacén se vacía antes de cargar.
+     *
+     * @param inquilino el inquilino cuya base de datos se usa.
+     * @param destino   el almacén donde se cargan las personas.
+     * @return {@code true} si la carga fue correcta, {@code false} en caso de error.
+     */
+    public static boolean cargarListadoPersonas(Inquilino inquilino, AlmacenColumnarPersonas destino) {
+        destino.limpiar();
+        ResilienciaBBDD resiliencia = GestorInquilinos.getResiliencia(inquilino);
+        try (ConexionBBDD conexion = ConexionBBDD.lectura(inquilino)) {
+            resiliencia = conexion.getResiliencia(); // El de la réplica, si la lectura va a una
+            try (Connection conn = conexion.getConexion();
+                 PreparedStatement pstmt = conn.prepareStatement(CONSULTA_LISTADO);
+                 ResultSet rs = ejecutarConsulta(pstmt)) {
+
+                MapeadorPersona mapeador = MapeadorPersona.para(rs, new CacheCadenas(CAPACIDAD_CACHE_CADENAS));
+                while (rs.next()) {
+                    mapeador.mapearEn(rs, destino);
+                }
+                resiliencia.registrarExito();
+                return true;
+            }
+        } catch (SQLException e) {
+            resiliencia.registrarError(e);
+            System.out.println("Error al cargar listado de personas: " + e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Modifica los datos de una persona existente en la base de datos.
      *
      * @param personaAntigua la {@code Persona} con los datos actuales en la base de datos.
      * @param personaNueva   la {@code Persona} con los datos actualizados.
-     * @return {@code true} si la modificación fue exitosa, {@code false} en caso contrario.
+     * @return el número de filas modificadas, {@code 0} si ninguna fila coincide o los datos no
+     * son válidos, o {@code -1} si se produjo un error.
      */
-    public static boolean modificarPersona(Persona personaAntigua, Persona personaNueva) {
+    public static int modificarPersona(Persona personaAntigua, Persona personaNueva) {
+        return modificarPersona(Inquilino.PREDETERMINADO, personaAntigua, personaNueva);
+    }
+
+    /**
+     * Modifica los datos de una persona existente en la base de datos.
+     * <p>
+     * Que ninguna fila coincida, porque la persona ya no existe, no es un error: se distingue de
+     * un fallo de la base de datos para que quien aplica muchos cambios pueda omitir el primer
+     * caso y detenerse en el segundo.
+     * </p>
+     *
+     * @param inquilino      el inquilino cuya base de datos se usa.
+     * @param personaAntigua la {@code Persona} con los datos actuales en la base de datos.
+     * @param personaNueva   la {@code Persona} con los datos actualizados.
+     * @return el número de filas modificadas, {@code 0} si ninguna fila coincide o los datos no
+     * son válidos, o {@code -1} si se produjo un error.
+     */
+    public static int modificarPersona(Inquilino inquilino, Persona personaAntigua, Persona personaNueva) {
+        Persona nueva = normalizarValida(personaNueva);
+        if (nueva == null) {
+            return 0;
+        }
         String consulta = "UPDATE Persona SET nombre = ?, apellidos = ?, edad = ? WHERE nombre = ? AND apellidos = ?";
-        try (ConexionBBDD conexion = new ConexionBBDD();
+        try (ConexionBBDD conexion = new ConexionBBDD(inquilino);
              Connection conn = conexion.getConexion();
              PreparedStatement pstmt = conn.prepareStatement(consulta)) {
 
+            pstmt.setQueryTimeout(ConfiguracionBBDD.getActual().getTimeoutConsultaS());
             // Establece los nuevos valores
-            pstmt.setString(1, personaNueva.getNombre());
-            pstmt.setString(2, personaNueva.getApellidos());
-            pstmt.setInt(3, personaNueva.getEdad());
+            pstmt.setString(1, nueva.getNombre());
+            pstmt.setString(2, nueva.getApellidos());
+            pstmt.setInt(3, nueva.getEdad());
 
             // Utiliza los valores originales para la búsqueda
             pstmt.setString(4, personaAntigua.getNombre());
             pstmt.setString(5, personaAntigua.getApellidos());
 
             int filasAfectadas = pstmt.executeUpdate();
-            return filasAfectadas > 0;
+            conexion.getResiliencia().registrarExito();
+            if (filasAfectadas > 0) {
+                conexion.registrarEscritura();
+                AuditoriaPersonas.getInstancia().registrar(inquilino, EventoAuditoria.Operacion.MODIFICACION,
+                        personaAntigua, nueva);
+            }
+            return filasAfectadas;
         } catch (SQLException e) {
+            GestorInquilinos.getResiliencia(inquilino).registrarError(e);
             System.out.println("Error al modificar en la base de datos: " + e.getMessage());
-            return false;
+            return -1;
         }
     }
 
@@ -81,23 +294,105 @@ public class DaoPersona {
      * @return {@code true} si la creación fue exitosa, {@code false} en caso de error.
      */
     public static boolean nuevaPersona(Persona persona) {
-        String consulta = "INSERT INTO Persona (nombre, apellidos, edad) VALUES (?, ?, ?)";
-        try (ConexionBBDD conexion = new ConexionBBDD();
+        return nuevaPersona(Inquilino.PREDETERMINADO, persona);
+    }
+
+    /**
+     * Crea una nueva persona en la base de datos.
+     *
+     * @param inquilino el inquilino cuya base de datos se usa.
+     * @param persona   la {@code Persona} a añadir a la base de datos.
+     * @return {@code true} si la creación fue exitosa, {@code false} en caso de error.
+     */
+    public static boolean nuevaPersona(Inquilino inquilino, Persona persona) {
+        Persona normalizada = normalizarValida(persona);
+        if (normalizada == null) {
+            return false;
+        }
+        try (ConexionBBDD conexion = new ConexionBBDD(inquilino);
              Connection conn = conexion.getConexion();
-             PreparedStatement pstmt = conn.prepareStatement(consulta)) {
+             PreparedStatement pstmt = conn.prepareStatement(CONSULTA_ALTA)) {
 
-            pstmt.setString(1, persona.getNombre());
-            pstmt.setString(2, persona.getApellidos());
-            pstmt.setInt(3, persona.getEdad());
+            pstmt.setQueryTimeout(ConfiguracionBBDD.getActual().getTimeoutConsultaS());
+            pstmt.setString(1, normalizada.getNombre());
+            pstmt.setString(2, normalizada.getApellidos());
+            pstmt.setInt(3, normalizada.getEdad());
 
             int filasAfectadas = pstmt.executeUpdate();
+            conexion.getResiliencia().registrarExito();
+            if (filasAfectadas > 0) {
+                conexion.registrarEscritura();
+                AuditoriaPersonas.getInstancia().registrar(inquilino, EventoAuditoria.Operacion.ALTA, null, normalizada);
+            }
             return filasAfectadas > 0;
         } catch (SQLException e) {
+            GestorInquilinos.getResiliencia(inquilino).registrarError(e);
             System.out.println("Error al crear persona en la base de datos: " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Crea varias personas en la base de datos en una única transacción.
+     *
+     * @param personas las personas a añadir.
+     * @return el número de personas añadidas, o {@code -1} si se produjo un error.
+     */
+    public static int nuevasPersonas(List<Persona> personas) {
+        return nuevasPersonas(Inquilino.PREDETERMINADO, personas);
+    }
+
+    /**
+     * Crea varias personas en la base de datos en una única transacción.
+     * <p>
+     * El lote se valida y normaliza entero con {@link ValidadorPersona#validarLote(List)} antes de
+     * abrir ninguna conexión: las filas no válidas se descartan e informan sin llegar al servidor,
+     * y las válidas se insertan con una sentencia por lotes. Si la inserción falla se deshace la
+     * transacción completa.
+     * </p>
+     *
+     * @param inquilino el inquilino cuya base de datos se usa.
+     * @param personas  las personas a añadir.
+     * @return el número de personas añadidas, o {@code -1} si se produjo un error.
+     */
+    public static int nuevasPersonas(Inquilino inquilino, List<Persona> personas) {
+        ValidadorPersona.Lote lote = ValidadorPersona.validarLote(personas);
+        lote.rechazadas().forEach((fila, motivo) ->
+                System.out.println("Fila " + (fila + 1) + " descartada: " + motivo));
+        if (lote.validas().isEmpty()) {
+            return 0;
+        }
+        try (ConexionBBDD conexion = new ConexionBBDD(inquilino);
+             Connection conn = conexion.getConexion();
+             PreparedStatement pstmt = conn.prepareStatement(CONSULTA_ALTA)) {
+            conn.setAutoCommit(false);
+            try {
+                pstmt.setQueryTimeout(ConfiguracionBBDD.getActual().getTimeoutConsultaS());
+                for (Persona persona : lote.validas()) {
+                    pstmt.setString(1, persona.getNombre());
+                    pstmt.setString(2, persona.getApellidos());
+                    pstmt.setInt(3, persona.getEdad());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+                conexion.getResiliencia().registrarExito();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            conexion.registrarEscritura();
+            for (Persona persona : lote.validas()) {
+                AuditoriaPersonas.getInstancia().registrar(inquilino, EventoAuditoria.Operacion.ALTA, null, persona);
+            }
+            return lote.validas().size();
+        } catch (SQLException e) {
+            GestorInquilinos.getResiliencia(inquilino).registrarError(e);
+            System.out.println("Error al crear personas en la base de datos: " + e.getMessage());
+            return -1;
+        }
+    }
+
     /**
      * Elimina una persona de la base de datos.
      *
@@ -105,19 +400,235 @@ public class DaoPersona {
      * @return {@code true} si la eliminación fue exitosa, {@code false} en caso contrario.
      */
     public static boolean eliminarPersona(Persona personaAEliminar) {
+        return eliminarPersona(Inquilino.PREDETERMINADO, personaAEliminar);
+    }
+
+    /**
+     * Elimina una persona de la base de datos.
+     *
+     * @param inquilino        el inquilino cuya base de datos se usa.
+     * @param personaAEliminar la {@code Persona} a eliminar de la base de datos.
+     * @return {@code true} si la eliminación fue exitosa, {@code false} en caso contrario.
+     */
+    public static boolean eliminarPersona(Inquilino inquilino, Persona personaAEliminar) {
         String consulta = "DELETE FROM Persona WHERE nombre = ? AND apellidos = ?";
-        try (ConexionBBDD conexion = new ConexionBBDD();
+        try (ConexionBBDD conexion = new ConexionBBDD(inquilino);
              Connection conn = conexion.getConexion();
              PreparedStatement pstmt = conn.prepareStatement(consulta)) {
 
+            pstmt.setQueryTimeout(ConfiguracionBBDD.getActual().getTimeoutConsultaS());
             pstmt.setString(1, personaAEliminar.getNombre());
             pstmt.setString(2, personaAEliminar.getApellidos());
 
             int filasAfectadas = pstmt.executeUpdate();
+            conexion.getResiliencia().registrarExito();
+            if (filasAfectadas > 0) {
+                conexion.registrarEscritura();
+                AuditoriaPersonas.getInstancia().registrar(inquilino, EventoAuditoria.Operacion.BAJA, personaAEliminar, null);
+            }
             return filasAfectadas > 0;
         } catch (SQLException e) {
+            GestorInquilinos.getResiliencia(inquilino).registrarError(e);
             System.out.println("Error al eliminar en la base de datos: " + e.getMessage());
             return false;
         }
     }
+
+    /**
+     * Elimina varias personas de la base de datos en una única transacción.
+     * <p>
+     * Las personas se agrupan en lotes de {@value #TAMANO_LOTE_ELIMINACION} y cada lote se elimina con
+     * una sola sentencia {@code DELETE ... WHERE (nombre, apellidos) IN (...)}, en lugar de una sentencia
+     * por fila. Si algún lote falla se deshace la transacción completa.
+     * </p>
+     *
+     * @param personasAEliminar las personas a eliminar de la base de datos.
+     * @return el número de filas eliminadas, o {@code -1} si se produjo un error.
+     */
+    public static int eliminarPersonas(List<Persona> personasAEliminar) {
+        return eliminarPersonas(Inquilino.PREDETERMINADO, personasAEliminar);
+    }
+
+    /**
+     * Elimina varias personas de la base de datos en una única transacción.
+     * <p>
+     * Las personas se agrupan en lotes de {@value #TAMANO_LOTE_ELIMINACION} y cada lote se elimina con
+     * una sola sentencia {@code DELETE ... WHERE (nombre, apellidos) IN (...)}, en lugar de una sentencia
+     * por fila. Si algún lote falla se deshace la transacción completa.
+     * </p>
+     * <p>
+     * Antes de eliminar cada lote se leen y bloquean sus filas con {@code SELECT ... FOR UPDATE}, de
+     * modo que solo se auditan las filas que existían y se eliminaron de verdad, con sus datos
+     * guardados, y no las que otra sesión ya había eliminado.
+     * </p>
+     *
+     * @param inquilino         el inquilino cuya base de datos se usa.
+     * @param personasAEliminar las personas a eliminar de la base de datos.
+     * @return el número de filas eliminadas, o {@code -1} si se produjo un error.
+     */
+    public static int eliminarPersonas(Inquilino inquilino, List<Persona> personasAEliminar) {
+        if (personasAEliminar.isEmpty()) {
+            return 0;
+        }
+        try (ConexionBBDD conexion = new ConexionBBDD(inquilino);
+             Connection conn = conexion.getConexion()) {
+            conn.setAutoCommit(false);
+            try {
+                int filasAfectadas = 0;
+                List<Persona> eliminadas = new ArrayList<>();
+                for (int inicio = 0; inicio < personasAEliminar.size(); inicio += TAMANO_LOTE_ELIMINACION) {
+                    List<Persona> lote = personasAEliminar.subList(inicio,
+                            Math.min(inicio + TAMANO_LOTE_ELIMINACION, personasAEliminar.size()));
+                    // Bloquear y leer las filas que se van a eliminar, para auditar solo las que existen
+                    try (PreparedStatement seleccion = conn.prepareStatement(consultaLote(CONSULTA_SELECCION_LOTE, lote.size(), ") FOR UPDATE"))) {
+                        asignarClaves(seleccion, lote);
+                        try (ResultSet rs = seleccion.executeQuery()) {
+                            MapeadorPersona mapeador = MapeadorPersona.para(rs, new CacheCadenas(CAPACIDAD_CACHE_CADENAS));
+                            while (rs.next()) {
+                                eliminadas.add(mapeador.mapear(rs));
+                            }
+                        }
+                    }
+                    try (PreparedStatement pstmt = conn.prepareStatement(consultaLote(CONSULTA_ELIMINACION_LOTE, lote.size(), ")"))) {
+                        asignarClaves(pstmt, lote);
+                        filasAfectadas += pstmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+                conexion.getResiliencia().registrarExito();
+                if (filasAfectadas > 0) {
+                    conexion.registrarEscritura();
+                }
+                for (Persona persona : eliminadas) {
+                    AuditoriaPersonas.getInstancia().registrar(inquilino, EventoAuditoria.Operacion.BAJA, persona, null);
+                }
+                return filasAfectadas;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            GestorInquilinos.getResiliencia(inquilino).registrarError(e);
+            System.out.println("Error al eliminar en la base de datos: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Elimina duplicados exactos, byte a byte, en una única transacción.
+     * <p>
+     * A diferencia de {@link #eliminarPersonas(Inquilino, List)}, cada fila se identifica por nombre,
+     * apellidos y edad comparados en binario. La intercalación de la tabla no distingue mayúsculas,
+     * acentos ni espacios finales, así que con ella eliminar "Ana Garcia" borraría también la
+     * "Ana García" que se quiere conservar. La comparación normal se mantiene para poder usar el
+     * índice; la binaria descarta las filas que solo coinciden con la intercalación.
+     * </p>
+     *
+     * @param inquilino el inquilino cuya base de datos se usa.
+     * @param duplicados las personas a eliminar, con los datos exactos de su fila.
+     * @return el número de filas eliminadas, o {@code -1} si se produjo un error.
+     */
+    public static int eliminarDuplicados(Inquilino inquilino, List<Persona> duplicados) {
+        if (duplicados.isEmpty()) {
+            return 0;
+        }
+        try (ConexionBBDD conexion = new ConexionBBDD(inquilino);
+             Connection conn = conexion.getConexion();
+             PreparedStatement pstmt = conn.prepareStatement(CONSULTA_ELIMINACION_EXACTA)) {
+            conn.setAutoCommit(false);
+            List<Persona> eliminadas = new ArrayList<>();
+            int filasAfectadas = 0;
+            try {
+                pstmt.setQueryTimeout(ConfiguracionBBDD.getActual().getTimeoutConsultaS());
+                for (Persona persona : duplicados) {
+                    pstmt.setString(1, persona.getNombre());
+                    pstmt.setString(2, persona.getApellidos());
+                    pstmt.setInt(3, persona.getEdad());
+                    pstmt.setString(4, persona.getNombre());
+                    pstmt.setString(5, persona.getApellidos());
+                    int filas = pstmt.executeUpdate();
+                    if (filas > 0) {
+                        eliminadas.add(persona);
+                        filasAfectadas += filas;
+                    }
+                }
+                conn.commit();
+                conexion.getResiliencia().registrarExito();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            if (filasAfectadas > 0) {
+                conexion.registrarEscritura();
+            }
+            for (Persona persona : eliminadas) {
+                AuditoriaPersonas.getInstancia().registrar(inquilino, EventoAuditoria.Operacion.BAJA, persona, null);
+            }
+            return filasAfectadas;
+        } catch (SQLException e) {
+            GestorInquilinos.getResiliencia(inquilino).registrarError(e);
+            System.out.println("Error al eliminar duplicados en la base de datos: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Valida y normaliza con {@link ValidadorPersona} una persona antes de enviarla al servidor.
+     *
+     * @param persona la persona a guardar.
+     * @return la persona normalizada, que es la que se debe guardar; si no es válida, informa del
+     * motivo y devuelve {@code null}.
+     */
+    private static Persona normalizarValida(Persona persona) {
+        ValidadorPersona.Resultado resultado = ValidadorPersona.validar(persona);
+        if (!resultado.esValido()) {
+            System.out.println("Persona no válida, no se guarda: " + resultado.mensaje().replace('\n', ' '));
+        }
+        return resultado.persona();
+    }
+
+    /**
+     * Ejecuta una consulta aplicando el tiempo máximo de ejecución y el tamaño de lectura configurados.
+     *
+     * @param pstmt la consulta preparada.
+     * @return el resultado de la consulta.
+     * @throws SQLException si la consulta falla o supera el tiempo máximo.
+     */
+    private static ResultSet ejecutarConsulta(PreparedStatement pstmt) throws SQLException {
+        pstmt.setQueryTimeout(ConfiguracionBBDD.getActual().getTimeoutConsultaS());
+        pstmt.setFetchSize(ConfiguracionBBDD.getActual().getFetchSize());
+        return pstmt.executeQuery();
+    }
+
+    /**
+     * Construye una sentencia para un lote de personas identificadas por nombre y apellidos.
+     *
+     * @param inicio     el principio de la sentencia, hasta el {@code IN (} incluido.
+     * @param tamanoLote el número de personas del lote.
+     * @param fin        el final de la sentencia, desde el paréntesis que cierra el {@code IN}.
+     * @return la sentencia SQL con dos parámetros por persona.
+     */
+    private static String consultaLote(String inicio, int tamanoLote, String fin) {
+        StringBuilder consulta = new StringBuilder(inicio);
+        for (int i = 0; i < tamanoLote; i++) {
+            consulta.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+        }
+        return consulta.append(fin).toString();
+    }
+
+    /**
+     * Asigna el nombre y los apellidos de cada persona de un lote a una sentencia de {@link #consultaLote(String, int, String)}.
+     *
+     * @param pstmt la sentencia preparada.
+     * @param lote  las personas del lote.
+     * @throws SQLException si no se pueden asignar los parámetros.
+     */
+    private static void asignarClaves(PreparedStatement pstmt, List<Persona> lote) throws SQLException {
+        pstmt.setQueryTimeout(ConfiguracionBBDD.getActual().getTimeoutConsultaS());
+        int indice = 1;
+        for (Persona persona : lote) {
+            pstmt.setString(indice++, persona.getNombre());
+            pstmt.setString(indice++, persona.getApellidos());
+        }
+    }
 }
@@ -0,0 +1,496 @@
+package es.jeremy.ejeh;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Tarea de detección y fusión de personas duplicadas por diferencias de acentos, espacios o erratas.
+ * <p>
+ * Comparar cada persona con todas las demás es inviable con millones de filas, así que las filas
+ * se agrupan antes en bloques y solo se comparan las de un mismo bloque. Cada fila entra en dos
+ * bloques, para que una errata no impida encontrar su duplicado:
+ * </p>
+ * <ul>
+ *     <li>los {@value #LONGITUD_PREFIJO} primeros caracteres de la clave de los apellidos y la
+ *     inicial del nombre;</li>
+ *     <li>el código fonético del primer apellido y el del nombre ({@link SimilitudNombres#codigoFonetico(String)}).</li>
+ * </ul>
+ * <p>
+ * Los bloques se comparan en paralelo con la similitud de Jaro-Winkler de nombre y apellidos. En
+ * los bloques de más de {@value #TAMANO_MAXIMO_BLOQUE} filas solo se compara cada fila con las
+ * {@value #VENTANA_BLOQUE_GRANDE} siguientes en orden alfabético, para que un apellido muy común no
+ * dispare el número de comparaciones. Las parejas que superan el umbral se unen en grupos y de
+ * cada grupo se propone conservar la fila mejor escrita y eliminar las que superan el umbral con
+ * ella; las que no, se vuelven a agrupar entre sí.
+ * </p>
+ * <p>
+ * Uso, en dos pasos para que una persona revise las propuestas antes de aplicarlas:
+ * </p>
+ * <pre>
+ * java es.jeremy.ejeh.DeduplicadorPersonas [--inquilino=principal] [--umbral=0.92] [--salida=propuestas.csv]
+ * java es.jeremy.ejeh.DeduplicadorPersonas [--inquilino=principal] --aplicar=propuestas.csv
+ * </pre>
+ * <p>
+ * El primer paso escribe las propuestas en un CSV con una columna {@code aceptar}, que viene a
+ * {@code si} cuando la similitud es al menos {@value #UMBRAL_ACEPTACION_AUTOMATICA}. El segundo
+ * aplica las filas marcadas con {@code si}, eliminando los duplicados por lotes con
+ * {@link DaoPersona#eliminarDuplicados(Inquilino, List)}.
+ * </p>
+ */
+public class DeduplicadorPersonas {
+
+    /**
+     * Similitud mínima para proponer la fusión de dos personas.
+     */
+    public static final double UMBRAL_POR_DEFECTO = 0.92;
+
+    /**
+     * Similitud a partir de la cual una propuesta se marca como aceptada en el CSV.
+     */
+    static final double UMBRAL_ACEPTACION_AUTOMATICA = 0.97;
+
+    private static final int LONGITUD_PREFIJO = 4;
+    private static final int TAMANO_MAXIMO_BLOQUE = 500;
+    private static final int VENTANA_BLOQUE_GRANDE = 25;
+    private static final int LOTE_APLICACION = 10_000;
+    private static final String CABECERA_CSV =
+            "aceptar,similitud,conservarNombre,conservarApellidos,conservarEdad,eliminarNombre,eliminarApellidos,eliminarEdad";
+
+    /**
+     * Propuesta de fusión: conservar una persona y eliminar su duplicado.
+     *
+     * @param conservar la persona que se conserva.
+     * @param eliminar  el duplicado que se elimina.
+     * @param similitud la similitud entre ambas, entre 0 y 1.
+     */
+    public record PropuestaFusion(Persona conservar, Persona eliminar, double similitud) {
+    }
+
+    private final AlmacenColumnarPersonas almacen;
+    private final double umbral;
+    private String[] clavesNombre;
+    private String[] clavesApellidos;
+
+    /**
+     * Crea la tarea sobre las personas de un almacén.
+     *
+     * @param almacen las personas cargadas.
+     * @param umbral  la similitud mínima para proponer una fusión.
+     */
+    public DeduplicadorPersonas(AlmacenColumnarPersonas almacen, double umbral) {
+        this.almacen = almacen;
+        this.umbral = umbral;
+    }
+
+    /**
+     * Punto de entrada de la herramienta.
+     *
+     * @param args los argumentos {@code --clave=valor} descritos en la documentación de la clase.
+     * @throws IOException si no se puede leer o escribir el archivo de propuestas.
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> opciones = new LinkedHashMap<>();
+        for (String arg : args) {
+            String[] partes = arg.replaceFirst("^--", "").split("=", 2);
+            opciones.put(partes[0], partes.length > 1 ? partes[1] : "");
+        }
+        Inquilino inquilino = new Inquilino(opciones.getOrDefault("inquilino", Inquilino.PREDETERMINADO.getId()));
+
+        try {
+            if (opciones.containsKey("aplicar")) {
+                List<PropuestaFusion> aceptadas = leerAceptadas(Path.of(opciones.get("aplicar")));
+                System.out.printf("Aplicando %d fusiones aceptadas%n", aceptadas.size());
+                int eliminadas = aplicar(inquilino, aceptadas);
+                System.out.println(eliminadas < 0 ? "Error al aplicar las fusiones" : eliminadas + " duplicados eliminados");
+                return;
+            }
+
+            AlmacenColumnarPersonas almacen = new AlmacenColumnarPersonas(1 << 16);
+            if (!DaoPersona.cargarListadoPersonas(inquilino, almacen)) {
+                return;
+            }
+            long inicio = System.nanoTime();
+            double umbral = Double.parseDouble(opciones.getOrDefault("umbral", String.valueOf(UMBRAL_POR_DEFECTO)));
+            List<PropuestaFusion> propuestas = new DeduplicadorPersonas(almacen, umbral).proponer();
+            Path salida = Path.of(opciones.getOrDefault("salida", "propuestas.csv"));
+            escribirPropuestas(salida, propuestas);
+            System.out.printf("%d personas, %d propuestas de fusión en %d ms, guardadas en %s%n", almacen.getTamano(),
+                    propuestas.size(), (System.nanoTime() - inicio) / 1_000_000, salida);
+        } finally {
+            AuditoriaPersonas.getInstancia().cerrar();
+            ConexionBBDD.cerrarPool();
+        }
+    }
+
+    /**
+     * Busca los duplicados y propone las fusiones.
+     *
+     * @return las propuestas, de mayor a menor similitud.
+     */
+    public List<PropuestaFusion> proponer() {
+        int filas = almacen.getTamano();
+        clavesNombre = new String[filas];
+        clavesApellidos = new String[filas];
+        IntStream.range(0, filas).parallel().forEach(i -> {
+            clavesNombre[i] = SimilitudNombres.clave(almacen.getNombre(i));
+            clavesApellidos[i] = SimilitudNombres.clave(almacen.getApellidos(i));
+        });
+
+        // Parejas similares de cada bloque, comparando los bloques en paralelo
+        List<int[]> parejas = construirBloques(filas).parallelStream()
+                .flatMap(bloque -> compararBloque(bloque).stream())
+                .toList();
+
+        // Unir las parejas en grupos de duplicados
+        int[] padre = new int[filas];
+        Arrays.setAll(padre, i -> i);
+        for (int[] pareja : parejas) {
+            padre[raiz(padre, pareja[0])] = raiz(padre, pareja[1]);
+        }
+        Map<Integer, ListaEnteros> grupos = new HashMap<>();
+        boolean[] agrupada = new boolean[filas];
+        for (int[] pareja : parejas) {
+            for (int fila : pareja) {
+                if (!agrupada[fila]) {
+                    agrupada[fila] = true;
+                    grupos.computeIfAbsent(raiz(padre, fila), r -> new ListaEnteros()).anadir(fila);
+                }
+            }
+        }
+
+        // Los grupos se unen por transitividad (A~B, B~C), así que A y C pueden no parecerse: solo
+        // se propone eliminar las filas que superan el umbral con la canónica, y las demás forman
+        // su propio grupo con una nueva canónica
+        List<PropuestaFusion> propuestas = new ArrayList<>();
+        for (ListaEnteros grupo : grupos.values()) {
+            ListaEnteros restantes = grupo;
+            while (restantes.tamano > 1) {
+                int canonica = elegirCanonica(restantes);
+                ListaEnteros siguientes = new ListaEnteros();
+                for (int i = 0; i < restantes.tamano; i++) {
+                    int fila = restantes.datos[i];
+                    if (fila == canonica) {
+                        continue;
+                    }
+                    double similitud = similitud(canonica, fila);
+                    if (similitud >= umbral) {
+                        propuestas.add(new PropuestaFusion(almacen.getPersona(canonica), almacen.getPersona(fila), similitud));
+                    } else {
+                        siguientes.anadir(fila);
+                    }
+                }
+                restantes = siguientes;
+            }
+        }
+        propuestas.sort(Comparator.comparingDouble(PropuestaFusion::similitud).reversed());
+        return propuestas;
+    }
+
+    /**
+     * Aplica las fusiones aceptadas eliminando los duplicados por lotes.
+     * <p>
+     * Cada duplicado se elimina con {@link DaoPersona#eliminarDuplicados(Inquilino, List)}, que solo
+     * borra la fila con exactamente el mismo nombre, apellidos y edad. Un duplicado idéntico byte a
+     * byte a la persona que se conserva no se puede distinguir de ella: esas propuestas se omiten
+     * y se informa de ellas.
+     * </p>
+     *
+     * @param inquilino el inquilino cuya base de datos se usa.
+     * @param aceptadas las propuestas aceptadas.
+     * @return el número de filas eliminadas, o {@code -1} si falló algún lote.
+     */
+    public static int aplicar(Inquilino inquilino, List<PropuestaFusion> aceptadas) {
+        LinkedHashSet<Persona> duplicados = new LinkedHashSet<>();
+        for (PropuestaFusion propuesta : aceptadas) {
+            Persona conservar = propuesta.conservar();
+            Persona eliminar = propuesta.eliminar();
+            if (conservar.equals(eliminar)) {
+                System.out.println("Se omite " + eliminar + ": es idéntica a " + conservar);
+            } else {
+                duplicados.add(eliminar);
+            }
+        }
+
+        List<Persona> pendientes = new ArrayList<>(duplicados);
+        int eliminadas = 0;
+        for (int inicio = 0; inicio < pendientes.size(); inicio += LOTE_APLICACION) {
+            int filas = DaoPersona.eliminarDuplicados(inquilino,
+                    pendientes.subList(inicio, Math.min(inicio + LOTE_APLICACION, pendientes.size())));
+            if (filas < 0) {
+                return -1;
+            }
+            eliminadas += filas;
+        }
+        return eliminadas;
+    }
+
+    /**
+     * Escribe las propuestas en un CSV para revisarlas.
+     *
+     * @param archivo    el archivo de destino.
+     * @param propuestas las propuestas.
+     * @throws IOException si no se puede escribir.
+     */
+    static void escribirPropuestas(Path archivo, List<PropuestaFusion> propuestas) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(archivo, StandardCharsets.UTF_8))) {
+            out.println(CABECERA_CSV);
+            for (PropuestaFusion propuesta : propuestas) {
+                Persona conservar = propuesta.conservar();
+                Persona eliminar = propuesta.eliminar();
+                out.println(String.join(",",
+                        propuesta.similitud() >= UMBRAL_ACEPTACION_AUTOMATICA ? "si" : "no",
+                        String.format(Locale.ROOT, "%.4f", propuesta.similitud()),
+                        campoCsv(conservar.getNombre()), campoCsv(conservar.getApellidos()),
+                        String.valueOf(conservar.getEdad()),
+                        campoCsv(eliminar.getNombre()), campoCsv(eliminar.getApellidos()),
+                        String.valueOf(eliminar.getEdad())));
+            }
+        }
+    }
+
+    /**
+     * Lee las propuestas marcadas con {@code si} de un CSV escrito por {@link #escribirPropuestas(Path, List)}.
+     *
+     * @param archivo el archivo de propuestas revisado.
+     * @return las propuestas aceptadas.
+     * @throws IOException si no se puede leer o el formato no es válido.
+     */
+    static List<PropuestaFusion> leerAceptadas(Path archivo) throws IOException {
+        List<PropuestaFusion> aceptadas = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            String linea = in.readLine();
+            if (!CABECERA_CSV.equals(linea)) {
+                throw new IOException("El archivo " + archivo + " no es un archivo de propuestas de fusión");
+            }
+            int numero = 1;
+            while ((linea = in.readLine()) != null) {
+                numero++;
+                List<String> campos = leerCampos(linea);
+                if (campos.size() != 8) {
+                    throw new IOException("Línea " + numero + " con " + campos.size() + " campos en lugar de 8");
+                }
+                if (!campos.get(0).trim().equalsIgnoreCase("si")) {
+                    continue;
+                }
+                try {
+                    aceptadas.add(new PropuestaFusion(
+                            new Persona(campos.get(2), campos.get(3), Integer.parseInt(campos.get(4).trim())),
+                            new Persona(campos.get(5), campos.get(6), Integer.parseInt(campos.get(7).trim())),
+                            Double.parseDouble(campos.get(1).trim())));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Línea " + numero + " no válida: " + e.getMessage(), e);
+                }
+            }
+        }
+        return aceptadas;
+    }
+
+    /**
+     * Agrupa las filas en bloques por sus dos claves de bloqueo.
+     *
+     * @param filas el número de filas.
+     * @return los bloques con al menos dos filas.
+     */
+    private List<ListaEnteros> construirBloques(int filas) {
+        Map<String, ListaEnteros> bloques = new HashMap<>();
+        for (int i = 0; i < filas; i++) {
+            String apellidos = clavesApellidos[i].replace(" ", "");
+            String nombre = clavesNombre[i];
+            if (!apellidos.isEmpty()) {
+                String prefijo = apellidos.substring(0, Math.min(LONGITUD_PREFIJO, apellidos.length()));
+                String inicial = nombre.isEmpty() ? "" : nombre.substring(0, 1);
+                bloques.computeIfAbsent("P" + prefijo + "|" + inicial, k -> new ListaEnteros()).anadir(i);
+            }
+            String fonetico = SimilitudNombres.codigoFonetico(clavesApellidos[i]);
+            if (!fonetico.isEmpty()) {
+                bloques.computeIfAbsent("F" + fonetico + "|" + SimilitudNombres.codigoFonetico(nombre),
+                        k -> new ListaEnteros()).anadir(i);
+            }
+        }
+        List<ListaEnteros> candidatos = new ArrayList<>();
+        for (ListaEnteros bloque : bloques.values()) {
+            if (bloque.tamano > 1) {
+                candidatos.add(bloque);
+            }
+        }
+        return candidatos;
+    }
+
+    /**
+     * Compara las filas de un bloque y devuelve las parejas que superan el umbral.
+     *
+     * @param bloque las filas del bloque.
+     * @return las parejas similares, como pares de índices.
+     */
+    private List<int[]> compararBloque(ListaEnteros bloque) {
+        List<int[]> parejas = new ArrayList<>();
+        int[] filas = Arrays.copyOf(bloque.datos, bloque.tamano);
+        int ventana = filas.length;
+        if (filas.length > TAMANO_MAXIMO_BLOQUE) {
+            // Vecindad ordenada: solo se compara cada fila con las siguientes en orden alfabético
+            filas = IntStream.of(filas).boxed()
+                    .sorted(Comparator.comparing((Integer i) -> clavesApellidos[i]).thenComparing(i -> clavesNombre[i]))
+                    .mapToInt(Integer::intValue).toArray();
+            ventana = VENTANA_BLOQUE_GRANDE;
+        }
+        for (int i = 0; i < filas.length; i++) {
+            for (int j = i + 1; j < Math.min(filas.length, i + 1 + ventana); j++) {
+                if (similitud(filas[i], filas[j]) >= umbral) {
+                    parejas.add(new int[]{filas[i], filas[j]});
+                }
+            }
+        }
+        return parejas;
+    }
+
+    /**
+     * Calcula la similitud entre dos filas: la de los apellidos pesa más que la del nombre, y una
+     * diferencia de edad de más de un año la reduce.
+     *
+     * @param a la primera fila.
+     * @param b la segunda fila.
+     * @return la similitud, entre 0 y 1.
+     */
+    private double similitud(int a, int b) {
+        double valor = 0.4 * SimilitudNombres.jaroWinkler(clavesNombre[a], clavesNombre[b])
+                + 0.6 * SimilitudNombres.jaroWinkler(clavesApellidos[a], clavesApellidos[b]);
+        if (Math.abs(almacen.getEdad(a) - almacen.getEdad(b)) > 1) {
+            valor *= 0.9;
+        }
+        return valor;
+    }
+
+    /**
+     * Elige la fila que se conserva de un grupo de duplicados: la que ya está normalizada y, entre
+     * ellas, la que tiene más letras no ASCII (conserva los acentos) y el texto más largo.
+     *
+     * @param grupo las filas del grupo.
+     * @return la fila que se conserva.
+     */
+    private int elegirCanonica(ListaEnteros grupo) {
+        Comparator<Integer> preferencia = Comparator
+                .comparing((Integer i) -> estaNormalizada(i))
+                .thenComparingLong(i -> noAscii(almacen.getNombre(i)) + noAscii(almacen.getApellidos(i)))
+                .thenComparingInt(i -> almacen.getNombre(i).length() + almacen.getApellidos(i).length())
+                .thenComparing(Comparator.<Integer>reverseOrder());
+        int mejor = grupo.datos[0];
+        for (int i = 1; i < grupo.tamano; i++) {
+            if (preferencia.compare(grupo.datos[i], mejor) > 0) {
+                mejor = grupo.datos[i];
+            }
+        }
+        return mejor;
+    }
+
+    /**
+     * Indica si el nombre y los apellidos de una fila ya están normalizados.
+     *
+     * @param fila la fila.
+     * @return {@code true} si la normalización no los cambia.
+     */
+    private boolean estaNormalizada(int fila) {
+        return ValidadorPersona.normalizar(almacen.getNombre(fila)).equals(almacen.getNombre(fila))
+                && ValidadorPersona.normalizar(almacen.getApellidos(fila)).equals(almacen.getApellidos(fila));
+    }
+
+    /**
+     * Cuenta los caracteres no ASCII de un texto.
+     *
+     * @param texto el texto.
+     * @return el número de caracteres no ASCII.
+     */
+    private static long noAscii(String texto) {
+        return texto.chars().filter(c -> c >= 0x80).count();
+    }
+
+    /**
+     * Busca la raíz del grupo de una fila, acortando el camino por el que pasa.
+     *
+     * @param padre el padre de cada fila en el bosque de grupos.
+     * @param fila  la fila.
+     * @return la raíz de su grupo.
+     */
+    private static int raiz(int[] padre, int fila) {
+        while (padre[fila] != fila) {
+            padre[fila] = padre[padre[fila]];
+            fila = padre[fila];
+        }
+        return fila;
+    }
+
+    /**
+     * Prepara un campo para el CSV, entre comillas si contiene comas, comillas o saltos de línea.
+     *
+     * @param valor el valor.
+     * @return el campo.
+     */
+    private static String campoCsv(String valor) {
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Separa los campos de una línea CSV, con los campos entre comillas de {@link #campoCsv(String)}.
+     *
+     * @param linea la línea.
+     * @return los campos.
+     */
+    private static List<String> leerCampos(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+
+    /**
+     * Lista ampliable de enteros, sin reservar un objeto por elemento.
+     */
+    private static class ListaEnteros {
+        private int[] datos = new int[4];
+        private int tamano;
+
+        private void anadir(int valor) {
+            if (tamano == datos.length) {
+                datos = Arrays.copyOf(datos, tamano * 2);
+            }
+            datos[tamano++] = valor;
+        }
+    }
+}
@@ -35,6 +35,9 @@ public class EditarPersonaController {
     public void initialize() {
         guardarButton.setOnAction(e -> guardarPersona());
         cancelarButton.setOnAction(e -> cancelar());
+        ValidacionFormulario.vigilar(nombreField, ValidadorPersona.Campo.NOMBRE);
+        ValidacionFormulario.vigilar(apellidosField, ValidadorPersona.Campo.APELLIDOS);
+        ValidacionFormulario.vigilar(edadField, ValidadorPersona.Campo.EDAD);
     }
 
     /**
@@ -47,51 +50,47 @@ public class EditarPersonaController {
         nombreField.setText(persona.getNombre());
         apellidosField.setText(persona.getApellidos());
         edadField.setText(String.valueOf(persona.getEdad()));
+        for (TextField campo : new TextField[]{nombreField, apellidosField, edadField}) {
+            ValidacionFormulario.marcar(campo, null);
+        }
     }
 
     /**
      * Guarda los cambios realizados en la persona y actualiza la base de datos.
      * <p>
-     * Realiza validaciones en los campos de entrada y actualiza la base de datos
-     * con los datos modificados. Notifica al controlador padre para que actualice
+     * Valida y normaliza los campos de entrada con {@link ValidadorPersona} y actualiza la base
+     * de datos con los datos modificados. Notifica al controlador padre para que actualice
      * la vista y cierra la ventana al finalizar.
      * </p>
      */
     private void guardarPersona() {
-        String nombre = nombreField.getText();
-        String apellidos = apellidosField.getText();
-        String edadStr = edadField.getText();
-
-        // Validación de datos
-        if (nombre.isEmpty() || apellidos.isEmpty() || edadStr.isEmpty()) {
-            mostrarAlerta("Todos los campos son obligatorios.");
+        // Validación y normalización de datos
+        ValidadorPersona.Resultado resultado =
+                ValidadorPersona.validar(nombreField.getText(), apellidosField.getText(), edadField.getText());
+        ValidacionFormulario.marcar(nombreField, resultado.errores().get(ValidadorPersona.Campo.NOMBRE));
+        ValidacionFormulario.marcar(apellidosField, resultado.errores().get(ValidadorPersona.Campo.APELLIDOS));
+        ValidacionFormulario.marcar(edadField, resultado.errores().get(ValidadorPersona.Campo.EDAD));
+        if (!resultado.esValido()) {
+            mostrarAlerta(resultado.mensaje());
             return;
         }
-
-        try {
-            int edad = Integer.parseInt(edadStr);
-            // Crear un nuevo objeto Persona con los datos modificados
-            Persona personaNueva = new Persona(nombre, apellidos, edad);
-
-            // Modificar la persona en la base de datos
-            boolean modificadoEnBD = DaoPersona.modificarPersona(personaEdicion, personaNueva);
-            if (modificadoEnBD) {
-                // Actualizar la persona en la referencia actual
-                personaEdicion.setNombre(nombre);
-                personaEdicion.setApellidos(apellidos);
-                personaEdicion.setEdad(edad);
-
-                // Notificar al controlador padre que los datos han cambiado
-                parentController.actualizarTabla(); // Asegúrate de implementar este método
-
-                // Cerrar la ventana
-                cerrarVentana();
-            } else {
-                mostrarAlerta("No se pudo actualizar la persona en la base de datos.");
-            }
-
-        } catch (NumberFormatException e) {
-            mostrarAlerta("La edad debe ser un número válido.");
+        Persona personaNueva = resultado.persona();
+
+        // Modificar la persona en la base de datos
+        boolean modificadoEnBD = DaoPersona.modificarPersona(personaEdicion, personaNueva) > 0;
+        if (modificadoEnBD) {
+            // Actualizar la persona en la referencia actual
+            personaEdicion.setNombre(personaNueva.getNombre());
+            personaEdicion.setApellidos(personaNueva.getApellidos());
+            personaEdicion.setEdad(personaNueva.getEdad());
+
+            // Notificar al controlador padre que los datos han cambiado
+            parentController.personaModificada(personaEdicion);
+
+            // Cerrar la ventana
+            cerrarVentana();
+        } else {
+            mostrarAlerta("No se pudo actualizar la persona en la base de datos.");
         }
     }
 
@@ -0,0 +1,129 @@
+package es.jeremy.ejeh;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enrutador de las lecturas entre el servidor principal y sus réplicas.
+ * <p>
+ * Las lecturas se reparten por turnos (round-robin) entre las réplicas configuradas en
+ * {@link ConfiguracionBBDD#getReplicas()}. Para que el usuario siempre vea sus propios cambios,
+ * durante {@link ConfiguracionBBDD#getVentanaLecturaPropiaMs()} después de cada escritura las
+ * lecturas se envían al servidor principal. Si una réplica no responde se prueba con la
+ * siguiente y, en último caso, con el principal.
+ * </p>
+ * <p>
+ * Cada réplica tiene su propio pool y su propio cortocircuito, de modo que la caída de una
+ * réplica no afecta al estado de la conexión con el principal: los errores de una lectura se
+ * registran en el cortocircuito del pool que sirvió la conexión ({@link ConexionBBDD#getResiliencia()}).
+ * </p>
+ */
+public class EnrutadorLecturas {
+    private static final AtomicInteger turno = new AtomicInteger();
+    private static volatile long ultimaEscrituraNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+
+    private static ConfiguracionBBDD configuracionReplicas; // Configuración con la que se crearon los pools
+    private static List<PoolConexiones> replicas = List.of();
+
+    private EnrutadorLecturas() {
+    }
+
+    /**
+     * Registra que se acaba de completar una escritura, para que las próximas lecturas se
+     * hagan en el servidor principal.
+     */
+    public static void registrarEscritura() {
+        ultimaEscrituraNanos = System.nanoTime();
+    }
+
+    /**
+     * Conexión de lectura junto con el pool que la ha servido.
+     *
+     * @param conexion la conexión, de solo lectura si es de una réplica.
+     * @param pool     el pool de la réplica o del principal que la ha servido.
+     */
+    record Lectura(Connection conexion, PoolConexiones pool) {
+    }
+
+    /**
+     * Obtiene una conexión para leer, de una réplica o del servidor principal. Las conexiones de
+     * las réplicas se marcan de solo lectura.
+     *
+     * @return la conexión, cuyo {@code close()} la devuelve a su pool, y el pool que la ha servido.
+     * @throws SQLException si no se puede obtener ninguna conexión.
+     */
+    static Lectura obtenerLectura() throws SQLException {
+        ConfiguracionBBDD configuracion = ConfiguracionBBDD.getActual();
+        List<PoolConexiones> disponibles = getReplicas(configuracion);
+        long desdeEscrituraMs = (System.nanoTime() - ultimaEscrituraNanos) / 1_000_000;
+        if (disponibles.isEmpty() || desdeEscrituraMs < configuracion.getVentanaLecturaPropiaMs()) {
+            return principal();
+        }
+
+        int inicio = Math.floorMod(turno.getAndIncrement(), disponibles.size());
+        for (int i = 0; i < disponibles.size(); i++) {
+            PoolConexiones replica = disponibles.get((inicio + i) % disponibles.size());
+            try {
+                Connection conexion = replica.obtener();
+                try {
+                    conexion.setReadOnly(true);
+                } catch (SQLException e) {
+                    conexion.close();
+                    throw e;
+                }
+                return new Lectura(conexion, replica);
+            } catch (SQLException e) {
+                replica.getResiliencia().registrarError(e);
+                System.out.println("Réplica " + replica.getNombre() + " no disponible: " + e.getMessage());
+            }
+        }
+        return principal();
+    }
+
+    /**
+     * Obtiene una conexión de lectura del servidor principal.
+     *
+     * @return la conexión y el pool del principal.
+     * @throws SQLException si falla la conexión.
+     */
+    private static Lectura principal() throws SQLException {
+        PoolConexiones pool = ConexionBBDD.getPool();
+        return new Lectura(pool.obtener(), pool);
+    }
+
+    /**
+     * Devuelve los pools de las réplicas, recreándolos si la configuración ha cambiado. Los pools
+     * anteriores se cierran junto con sus cortocircuitos.
+     *
+     * @param configuracion la configuración vigente.
+     * @return los pools de las réplicas, vacía si no hay réplicas configuradas.
+     */
+    private static synchronized List<PoolConexiones> getReplicas(ConfiguracionBBDD configuracion) {
+        if (configuracion != configuracionReplicas) {
+            cerrar();
+            List<PoolConexiones> nuevas = new ArrayList<>();
+            for (int i = 0; i < configuracion.getReplicas().size(); i++) {
+                nuevas.add(new PoolConexiones("replica-" + (i + 1), configuracion.getReplicas().get(i),
+                        configuracion, new ResilienciaBBDD(configuracion)));
+            }
+            replicas = List.copyOf(nuevas);
+            configuracionReplicas = configuracion;
+        }
+        return replicas;
+    }
+
+    /**
+     * Cierra los pools de todas las réplicas y detiene el sondeo de sus cortocircuitos.
+     */
+    public static synchronized void cerrar() {
+        for (PoolConexiones replica : replicas) {
+            replica.cerrar();
+            replica.getResiliencia().cerrar();
+        }
+        replicas = List.of();
+        configuracionReplicas = null;
+    }
+}
@@ -0,0 +1,31 @@
+package es.jeremy.ejeh;
+
+/**
+ * Cambio en la tabla Persona registrado para auditoría, con la imagen anterior y posterior de la fila.
+ *
+ * @param instanteMs el momento del cambio, en milisegundos desde la época.
+ * @param inquilino  el identificador del inquilino en cuya base de datos se hizo el cambio.
+ * @param operacion  el tipo de cambio.
+ * @param antes      la persona antes del cambio, o {@code null} en un alta.
+ * @param despues    la persona después del cambio, o {@code null} en una baja.
+ */
+public record EventoAuditoria(long instanteMs, String inquilino, Operacion operacion, Persona antes, Persona despues) {
+
+    /**
+     * Tipos de cambio auditados.
+     */
+    public enum Operacion {
+        /**
+         * Se ha añadido una persona.
+         */
+        ALTA,
+        /**
+         * Se han modificado los datos de una persona.
+         */
+        MODIFICACION,
+        /**
+         * Se ha eliminado una persona.
+         */
+        BAJA
+    }
+}
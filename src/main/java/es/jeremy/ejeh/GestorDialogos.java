@@ -0,0 +1,142 @@
+package es.jeremy.ejeh;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+import java.io.IOException;
+
+/**
+ * Gestor de las ventanas de diálogo de la aplicación.
+ * <p>
+ * Cada diálogo (nueva persona y editar persona) se carga desde su archivo FXML una única vez
+ * y se reutiliza en las siguientes aperturas: el {@code Stage}, la {@code Scene} y el controlador
+ * se conservan y solo se reinician los campos del formulario antes de mostrarlo.
+ * </p>
+ * <p>
+ * También mide el tiempo que tarda cada diálogo en abrirse, para comprobar que las aperturas
+ * sucesivas son prácticamente instantáneas.
+ * </p>
+ */
+public class GestorDialogos {
+    private final HelloController parentController; // Controlador principal de la aplicación
+
+    private Stage nuevaPersonaStage; // Ventana reutilizable de nueva persona
+    private NuevaPersonaController nuevaPersonaController;
+
+    private Stage editarPersonaStage; // Ventana reutilizable de edición
+    private EditarPersonaController editarPersonaController;
+
+    private final EstadisticasApertura estadisticasNueva = new EstadisticasApertura("Nueva Persona");
+    private final EstadisticasApertura estadisticasEditar = new EstadisticasApertura("Modificar Persona");
+
+    /**
+     * Crea el gestor de diálogos asociado al controlador principal.
+     *
+     * @param parentController el controlador principal que recibirá los cambios de los diálogos.
+     */
+    public GestorDialogos(HelloController parentController) {
+        this.parentController = parentController;
+    }
+
+    /**
+     * Muestra el diálogo de nueva persona con los campos vacíos y espera a que se cierre.
+     *
+     * @param owner la ventana propietaria del diálogo, puede ser {@code null}.
+     * @throws IOException si no se puede cargar el archivo FXML la primera vez.
+     */
+    public void abrirNuevaPersona(Window owner) throws IOException {
+        long inicio = System.nanoTime();
+        if (nuevaPersonaStage == null) {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("ventana.fxml"));
+            Parent root = loader.load();
+            nuevaPersonaController = loader.getController();
+            nuevaPersonaController.setParentController(parentController);
+            nuevaPersonaStage = crearStage("Nueva Persona", root, owner);
+        }
+        nuevaPersonaController.limpiar(); // Reiniciar los campos entre usos
+        mostrar(nuevaPersonaStage, inicio, estadisticasNueva);
+    }
+
+    /**
+     * Muestra el diálogo de edición cargado con los datos de la persona y espera a que se cierre.
+     *
+     * @param owner   la ventana propietaria del diálogo, puede ser {@code null}.
+     * @param persona la {@code Persona} que se va a editar.
+     * @throws IOException si no se puede cargar el archivo FXML la primera vez.
+     */
+    public void abrirEditarPersona(Window owner, Persona persona) throws IOException {
+        long inicio = System.nanoTime();
+        if (editarPersonaStage == null) {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("editarventana.fxml"));
+            Parent root = loader.load();
+            editarPersonaController = loader.getController();
+            editarPersonaController.setParentController(parentController);
+            editarPersonaStage = crearStage("Modificar Persona", root, owner);
+        }
+        editarPersonaController.cargarDatos(persona); // Reiniciar los campos con la persona actual
+        mostrar(editarPersonaStage, inicio, estadisticasEditar);
+    }
+
+    /**
+     * Crea un {@code Stage} modal y no redimensionable para un diálogo.
+     *
+     * @param titulo el título de la ventana.
+     * @param root   el nodo raíz cargado desde el FXML.
+     * @param owner  la ventana propietaria, puede ser {@code null}.
+     * @return el {@code Stage} configurado.
+     */
+    private Stage crearStage(String titulo, Parent root, Window owner) {
+        Stage stage = new Stage();
+        stage.setTitle(titulo);
+        stage.setScene(new Scene(root));
+        stage.setResizable(false); // No se puede cambiar el tamaño
+        stage.initModality(Modality.APPLICATION_MODAL); // Modalidad
+        if (owner != null) {
+            stage.initOwner(owner);
+        }
+        return stage;
+    }
+
+    /**
+     * Muestra el diálogo, registra la latencia de apertura y espera a que se cierre.
+     *
+     * @param stage        la ventana del diálogo.
+     * @param inicio       el instante ({@code System.nanoTime()}) en que se pidió la apertura.
+     * @param estadisticas las estadísticas donde se registra la latencia.
+     */
+    private void mostrar(Stage stage, long inicio, EstadisticasApertura estadisticas) {
+        stage.setOnShown(e -> estadisticas.registrar(System.nanoTime() - inicio));
+        stage.showAndWait(); // Esperar a que se cierre la ventana
+    }
+
+    /**
+     * Estadísticas sencillas de la latencia de apertura de un diálogo.
+     */
+    private static class EstadisticasApertura {
+        private final String nombre;
+        private long aperturas;
+        private long totalNanos;
+        private long maximoNanos;
+
+        EstadisticasApertura(String nombre) {
+            this.nombre = nombre;
+        }
+
+        /**
+         * Registra una apertura e informa de su latencia por consola.
+         *
+         * @param nanos la latencia de la apertura en nanosegundos.
+         */
+        void registrar(long nanos) {
+            aperturas++;
+            totalNanos += nanos;
+            maximoNanos = Math.max(maximoNanos, nanos);
+            System.out.printf("Diálogo '%s' abierto en %.2f ms (media %.2f ms, máx %.2f ms, %d aperturas)%n",
+                    nombre, nanos / 1e6, totalNanos / 1e6 / aperturas, maximoNanos / 1e6, aperturas);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package es.jeremy.ejeh;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gestor de los inquilinos (una agenda por delegación) y de sus pools de conexiones.
+ * <p>
+ * Cada inquilino configurado en {@link ConfiguracionBBDD#getUrlsInquilinos()} tiene su propio
+ * pool, de {@link ConfiguracionBBDD#getTamanoPoolInquilino()} conexiones, y su propio
+ * cortocircuito, de modo que la caída del servidor de una delegación no afecta a las demás. Los
+ * pools se crean con la primera operación del inquilino y se cierran cuando llevan
+ * {@link ConfiguracionBBDD#getInactividadInquilinoMs()} sin usarse; la comprobación se hace de
+ * paso al pedir un pool, sin hilos aparte.
+ * </p>
+ * <p>
+ * Todas las operaciones, también las del inquilino predeterminado, piden antes turno a un
+ * {@link PlanificadorJusto} con capacidad {@link ConfiguracionBBDD#getConcurrenciaMaxima()}, que
+ * reparte los turnos libres por rondas entre inquilinos. Una importación masiva de una
+ * delegación no puede dejar sin servicio a las demás.
+ * </p>
+ */
+public class GestorInquilinos {
+
+    /**
+     * Intervalo mínimo, en milisegundos, entre dos búsquedas de pools inactivos.
+     */
+    private static final long INTERVALO_REVISION_MS = 30_000;
+
+    private static final PlanificadorJusto planificador =
+            new PlanificadorJusto(ConfiguracionBBDD.getActual().getConcurrenciaMaxima());
+    private static final Map<String, Entrada> pools = new ConcurrentHashMap<>();
+    private static final Map<String, Contadores> contadores = new ConcurrentHashMap<>();
+    private static final AtomicLong ultimaRevisionMs = new AtomicLong(System.currentTimeMillis());
+
+    private GestorInquilinos() {
+    }
+
+    /**
+     * Pide turno para una operación del inquilino, esperando como mucho
+     * {@link ConfiguracionBBDD#getEsperaMaximaPoolMs()}. Cada turno concedido se debe devolver
+     * con {@link #salir(Inquilino)}.
+     * <p>
+     * Un inquilino no configurado se rechaza antes de crear sus contadores o pedir turno, para
+     * que un identificador erróneo no deje rastro en las métricas.
+     * </p>
+     *
+     * @param inquilino el inquilino de la operación.
+     * @throws SQLException si el inquilino no está configurado, si se agota la espera o se
+     *                      interrumpe el hilo.
+     */
+    static void entrar(Inquilino inquilino) throws SQLException {
+        ConfiguracionBBDD configuracion = ConfiguracionBBDD.getActual();
+        comprobarConfigurado(inquilino, configuracion);
+        planificador.setCapacidad(configuracion.getConcurrenciaMaxima());
+        Contadores cuenta = contadores.computeIfAbsent(inquilino.getId(), id -> new Contadores());
+        long inicio = System.nanoTime();
+        try {
+            if (!planificador.adquirir(inquilino.getId(), configuracion.getEsperaMaximaPoolMs())) {
+                cuenta.esperasAgotadas.incrementAndGet();
+                throw new SQLException("No hay turno libre para el inquilino " + inquilino, "HYT00");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido mientras se esperaba turno para el inquilino " + inquilino, e);
+        }
+        cuenta.operaciones.incrementAndGet();
+        cuenta.nanosEspera.addAndGet(System.nanoTime() - inicio);
+    }
+
+    /**
+     * Devuelve el turno de una operación del inquilino.
+     *
+     * @param inquilino el inquilino de la operación.
+     */
+    static void salir(Inquilino inquilino) {
+        planificador.liberar(inquilino.getId());
+    }
+
+    /**
+     * Devuelve el pool de un inquilino configurado, creándolo si no existe o si la configuración
+     * ha cambiado. De paso cierra los pools de otros inquilinos que llevan tiempo sin usarse.
+     *
+     * @param inquilino el inquilino, distinto del predeterminado.
+     * @return el pool del inquilino.
+     * @throws SQLException si el inquilino no está configurado.
+     */
+    static PoolConexiones getPool(Inquilino inquilino) throws SQLException {
+        ConfiguracionBBDD configuracion = ConfiguracionBBDD.getActual();
+        comprobarConfigurado(inquilino, configuracion);
+        String url = configuracion.getUrlsInquilinos().get(inquilino.getId());
+        cerrarInactivos(configuracion);
+
+        Entrada entrada = pools.compute(inquilino.getId(), (id, actual) -> {
+            if (actual != null && actual.pool.getConfiguracion() == configuracion) {
+                return actual;
+            }
+            if (actual != null) {
+                actual.cerrar(); // Las conexiones prestadas se cierran al devolverse
+            }
+            ResilienciaBBDD resiliencia = new ResilienciaBBDD(configuracion);
+            return new Entrada(new PoolConexiones(id, url, configuracion, resiliencia,
+                    configuracion.getTamanoPoolInquilino()), resiliencia);
+        });
+        entrada.ultimoUsoMs = System.currentTimeMillis();
+        return entrada.pool;
+    }
+
+    /**
+     * Comprueba que un inquilino es el predeterminado o está en la configuración.
+     *
+     * @param inquilino     el inquilino.
+     * @param configuracion la configuración vigente.
+     * @throws SQLException si el inquilino no está configurado.
+     */
+    static void comprobarConfigurado(Inquilino inquilino, ConfiguracionBBDD configuracion) throws SQLException {
+        if (!inquilino.esPredeterminado() && !configuracion.getUrlsInquilinos().containsKey(inquilino.getId())) {
+            throw new SQLException("Inquilino desconocido: " + inquilino);
+        }
+    }
+
+    /**
+     * Devuelve la capa de resiliencia de un inquilino, la compartida si es el predeterminado.
+     *
+     * @param inquilino el inquilino.
+     * @return su capa de resiliencia; la compartida si su pool no está abierto.
+     */
+    static ResilienciaBBDD getResiliencia(Inquilino inquilino) {
+        Entrada entrada = inquilino.esPredeterminado() ? null : pools.get(inquilino.getId());
+        return entrada == null ? ResilienciaBBDD.getInstancia() : entrada.resiliencia;
+    }
+
+    /**
+     * Devuelve las métricas de todos los inquilinos que han hecho alguna operación.
+     *
+     * @return las métricas, una por inquilino.
+     */
+    public static List<MetricasInquilino> getMetricas() {
+        List<MetricasInquilino> metricas = new ArrayList<>();
+        for (Map.Entry<String, Contadores> cuenta : contadores.entrySet()) {
+            String id = cuenta.getKey();
+            PoolConexiones pool = id.equals(Inquilino.PREDETERMINADO.getId()) ? ConexionBBDD.getPool() : null;
+            Entrada entrada = pools.get(id);
+            if (entrada != null) {
+                pool = entrada.pool;
+            }
+            Contadores c = cuenta.getValue();
+            long operaciones = c.operaciones.get();
+            metricas.add(new MetricasInquilino(id,
+                    planificador.getEnCurso(id),
+                    planificador.getEnEspera(id),
+                    pool == null ? 0 : pool.getAbiertas(),
+                    operaciones,
+                    c.esperasAgotadas.get(),
+                    operaciones == 0 ? 0 : c.nanosEspera.get() / operaciones / 1_000));
+        }
+        return metricas;
+    }
+
+    /**
+     * Cierra los pools de todos los inquilinos y detiene el sondeo de sus cortocircuitos.
+     */
+    public static void cerrar() {
+        pools.values().removeIf(entrada -> {
+            entrada.cerrar();
+            return true;
+        });
+    }
+
+    /**
+     * Cierra los pools de los inquilinos sin operaciones en curso que llevan más del tiempo
+     * configurado sin usarse. Solo busca una vez cada {@value #INTERVALO_REVISION_MS} ms.
+     *
+     * @param configuracion la configuración vigente.
+     */
+    private static void cerrarInactivos(ConfiguracionBBDD configuracion) {
+        long ahora = System.currentTimeMillis();
+        long ultima = ultimaRevisionMs.get();
+        if (ahora - ultima < INTERVALO_REVISION_MS || !ultimaRevisionMs.compareAndSet(ultima, ahora)) {
+            return;
+        }
+        for (String id : pools.keySet()) {
+            // Se decide dentro de computeIfPresent para que ningún hilo obtenga el pool mientras se cierra
+            pools.computeIfPresent(id, (clave, entrada) -> {
+                boolean inactivo = ahora - entrada.ultimoUsoMs > configuracion.getInactividadInquilinoMs()
+                        && planificador.getEnCurso(clave) == 0 && entrada.pool.getEnUso() == 0;
+                if (!inactivo) {
+                    return entrada;
+                }
+                entrada.cerrar();
+                System.out.println("Pool del inquilino " + clave + " cerrado por inactividad");
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Métricas de un inquilino.
+     *
+     * @param id                el identificador del inquilino.
+     * @param enCurso           las operaciones con turno en este momento.
+     * @param enEspera          las operaciones esperando turno.
+     * @param abiertas          las conexiones físicas abiertas de su pool.
+     * @param operaciones       las operaciones que han recibido turno.
+     * @param esperasAgotadas   las operaciones que se agotaron esperando turno.
+     * @param esperaMediaMicros la espera media por turno, en microsegundos.
+     */
+    public record MetricasInquilino(String id, int enCurso, int enEspera, int abiertas, long operaciones,
+                                    long esperasAgotadas, long esperaMediaMicros) {
+    }
+
+    /**
+     * Pool de un inquilino con su capa de resiliencia y el momento de su último uso.
+     */
+    private static class Entrada {
+        private final PoolConexiones pool;
+        private final ResilienciaBBDD resiliencia;
+        private volatile long ultimoUsoMs = System.currentTimeMillis();
+
+        private Entrada(PoolConexiones pool, ResilienciaBBDD resiliencia) {
+            this.pool = pool;
+            this.resiliencia = resiliencia;
+        }
+
+        /**
+         * Cierra el pool y detiene el sondeo de su cortocircuito.
+         */
+        private void cerrar() {
+            pool.cerrar();
+            resiliencia.cerrar();
+        }
+    }
+
+    /**
+     * Contadores acumulados de un inquilino.
+     */
+    private static class Contadores {
+        private final AtomicLong operaciones = new AtomicLong();
+        private final AtomicLong esperasAgotadas = new AtomicLong();
+        private final AtomicLong nanosEspera = new AtomicLong();
+    }
+}
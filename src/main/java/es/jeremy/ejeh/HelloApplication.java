@@ -17,6 +17,7 @@ import java.sql.SQLException;
  * </p>
  */
 public class HelloApplication extends Application {
+    private HelloController controller; // Controlador de la ventana principal
 
     /**
      * Método de inicio de la aplicación JavaFX.
@@ -39,6 +40,7 @@ public class HelloApplication extends Application {
 
         // Crear la escena con las dimensiones adecuadas
         Scene scene = new Scene(fxmlLoader.load(), 734, 474);
+        controller = fxmlLoader.getController();
 
         // Establecer el título de la ventana
         stage.setTitle("Personas");
@@ -48,25 +50,48 @@ public class HelloApplication extends Application {
         stage.show();
     }
 
+    /**
+     * Método de cierre de la aplicación JavaFX.
+     * <p>
+     * Completa las eliminaciones pendientes en la base de datos, escribe la auditoría pendiente y
+     * cierra el pool de conexiones antes de salir.
+     * </p>
+     */
+    @Override
+    public void stop() {
+        if (controller != null) {
+            controller.cerrar();
+        }
+        AuditoriaPersonas.getInstancia().cerrar();
+        ConexionBBDD.cerrarPool();
+    }
+
     /**
      * Método principal de la aplicación que inicia el programa.
      * <p>
-     * Verifica la conexión a la base de datos al inicio y luego lanza la aplicación JavaFX.
+     * Valida la configuración de la base de datos, verifica la conexión al inicio y luego lanza
+     * la aplicación JavaFX.
+     * Si la base de datos no está disponible la aplicación arranca igualmente; la capa de
+     * resiliencia detectará su recuperación y la interfaz mostrará el estado de la conexión.
      * </p>
      *
      * @param args los argumentos de línea de comandos.
      */
     public static void main(String[] args) {
+        // Validar la configuración antes de arrancar
         try {
-            // Crear la conexión para verificar que es posible conectarse a la base de datos.
-            ConexionBBDD conexioPrueba = new ConexionBBDD();
-            // Ejemplo comentado para la creación de un objeto de prueba y llamada al DAO
-            // ModeloPersona personaPrueba = new ModeloPersona("69696969-Z");
-            // DaoDni.nuevoDNI(personaPrueba);
+            ConfiguracionBBDD.getActual();
+        } catch (IllegalArgumentException e) {
+            System.out.println("Configuración de la base de datos no válida: " + e.getMessage());
+            return;
+        }
+        ConfiguracionBBDD.vigilarArchivoExterno();
 
+        // Crear la conexión para verificar que es posible conectarse a la base de datos.
+        try (ConexionBBDD conexionPrueba = new ConexionBBDD()) {
+            System.out.println("Conexión de prueba correcta");
         } catch (SQLException e) {
-            // TODO: Manejar esta excepción adecuadamente
-            throw new RuntimeException(e);
+            System.out.println("No se pudo conectar con la base de datos: " + e.getMessage());
         }
         // Iniciar la aplicación JavaFX
         launch();
@@ -1,18 +1,19 @@
 package es.jeremy.ejeh;
 
+import javafx.application.Platform;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.stage.Modality;
-import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.prefs.Preferences;
 
 /**
  * Controlador principal de la aplicación que gestiona la vista y las acciones de la interfaz de usuario.
@@ -22,6 +23,8 @@ import java.io.IOException;
  * </p>
  */
 public class HelloController {
+    private static final String PREFERENCIA_COLUMNA = "tabla.orden.columna";
+    private static final String PREFERENCIA_ASCENDENTE = "tabla.orden.ascendente";
 
     @FXML
     private TableView<Persona> tableView;  // Tabla de personas
@@ -38,52 +41,150 @@ public class HelloController {
     @FXML
     private Button eliminarButton;  // Botón para eliminar personas
     @FXML
-    private TextField filtroNombreField;  // Campo para filtrar por nombre
+    private Button deshacerButton;  // Botón para deshacer la última eliminación
+    @FXML
+    private TextField filtroNombreField;  // Campo para filtrar por nombre o apellidos
+    @FXML
+    private TextField edadMinimaField;  // Campo para la edad mínima del filtro
+    @FXML
+    private TextField edadMaximaField;  // Campo para la edad máxima del filtro
+    @FXML
+    private Label estadoConexionLabel;  // Estado de la conexión con la base de datos
 
-    private ObservableList<Persona> personas;
+    private ObservableList<Persona> personas; // Lista base con todas las personas cargadas
+    private OrdenesPersonas personasOrdenadas; // Vista ordenada sobre la lista base
+    private FilteredList<Persona> personasFiltradas; // Vista filtrada sobre la vista ordenada
+    private GestorDialogos gestorDialogos; // Diálogos reutilizables de alta y edición
+    private PapeleraPersonas papelera; // Eliminaciones pendientes que aún se pueden deshacer
+    private ActualizadorLista<Persona> actualizador; // Aplica los cambios masivos en un solo pulso
+    private volatile boolean cambiosSinInstantanea; // Hay cambios locales posteriores a la última instantánea
+    private final Consumer<ResilienciaBBDD.EstadoCircuito> oyenteConexion =
+            estado -> Platform.runLater(() -> mostrarEstadoConexion(estado));
 
     /**
      * Método de inicialización que configura la tabla, columnas y las acciones de los botones.
      */
     @FXML
     public void initialize() {
+        // La tabla muestra una vista filtrada de una vista ordenada de la lista base, sin copias.
+        // Los órdenes por columna se mantienen al día con cada cambio, así que ordenar no compara nada;
+        // el filtro sí vuelve a evaluar todas las filas en cada cambio de orden
         personas = FXCollections.observableArrayList();
-        tableView.setItems(personas);
+        personasOrdenadas = new OrdenesPersonas(personas);
+        personasFiltradas = new FilteredList<>(personasOrdenadas);
+        tableView.setItems(personasFiltradas);
+        tableView.setSortPolicy(tabla -> {
+            aplicarOrden();
+            return true;
+        });
+        gestorDialogos = new GestorDialogos(this);
+        actualizador = new ActualizadorLista<>(personas);
+        papelera = new PapeleraPersonas(fallidas -> {
+            actualizador.anadir(fallidas);
+            Platform.runLater(() -> mostrarAlerta("Error",
+                    "No se pudieron eliminar " + fallidas.size() + " personas de la base de datos."));
+        });
+        tableView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+
+        // Mostrar el estado de la conexión y seguir sus cambios
+        mostrarEstadoConexion(ResilienciaBBDD.getInstancia().getEstado());
+        ResilienciaBBDD.getInstancia().addListener(oyenteConexion);
 
         // Configuración de las columnas de la tabla
         nombreColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getNombre()));
         apellidosColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getApellidos()));
         edadColumn.setCellValueFactory(cellData -> new SimpleIntegerProperty(cellData.getValue().getEdad()).asObject());
+        restaurarOrden();
 
         // Asignar la acción a los botones
         agregarButton.setOnAction(e -> agregarPersona());
         modificarButton.setOnAction(e -> modificarPersona());
         eliminarButton.setOnAction(e -> eliminarPersona());
+        deshacerButton.setOnAction(e -> deshacerEliminacion());
 
         // Configuración del filtro de la tabla
-        filtroNombreField.textProperty().addListener((observable, oldValue, newValue) -> {
-            filtrarTabla(newValue);
-        });
+        filtroNombreField.textProperty().addListener((observable, oldValue, newValue) -> filtrarTabla());
+        edadMinimaField.textProperty().addListener((observable, oldValue, newValue) -> filtrarTabla());
+        edadMaximaField.textProperty().addListener((observable, oldValue, newValue) -> filtrarTabla());
+
+        cargarPersonas();
     }
 
     /**
-     * Abre una nueva ventana para agregar una persona.
+     * Carga el listado de personas en segundo plano. El resultado llega a la tabla en un único
+     * pulso a través del {@link ActualizadorLista}, sin bloquear el hilo de JavaFX.
+     * <p>
+     * Si hay una instantánea local se muestra de inmediato y después se reconcilia con la base de
+     * datos: solo se vuelve a cargar el listado si la tabla ha cambiado desde la instantánea.
+     * </p>
+     * <p>
+     * Hasta que termina la reconciliación no se puede agregar, modificar, eliminar ni deshacer:
+     * el listado cargado reemplaza toda la lista y borraría esos cambios de la tabla.
+     * </p>
      */
-    private void agregarPersona() {
-        try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("ventana.fxml"));
-            Parent root = loader.load();
+    private void cargarPersonas() {
+        habilitarEdicion(false);
+        Thread carga = new Thread(() -> {
+            try {
+                InstantaneaPersonas instantanea = InstantaneaPersonas.leer(InstantaneaPersonas.rutaPorDefecto());
+                if (instantanea != null) {
+                    actualizador.reemplazar(instantanea.getPersonas());
+                }
+
+                long marcaAgua = DaoPersona.checksumTabla();
+                if (marcaAgua < 0 && instantanea != null) {
+                    return; // Sin conexión: se sigue mostrando la instantánea
+                }
+                if (instantanea != null && marcaAgua == instantanea.getMarcaAgua()) {
+                    return; // La tabla no ha cambiado desde la instantánea
+                }
+                ObservableList<Persona> cargadas = DaoPersona.cargarListadoPersonas();
+                actualizador.reemplazar(cargadas);
+                if (marcaAgua >= 0) {
+                    guardarInstantanea(new ArrayList<>(cargadas), marcaAgua);
+                }
+            } finally {
+                // Se encola después del reemplazo, así que llega a la tabla cuando ya se ha aplicado
+                Platform.runLater(() -> habilitarEdicion(true));
+            }
+        }, "carga-personas");
+        carga.setDaemon(true);
+        carga.start();
+    }
 
-            NuevaPersonaController controller = loader.getController();
-            controller.setParentController(this); // Establecer el controlador padre
+    /**
+     * Habilita o deshabilita los botones que cambian el listado de personas.
+     *
+     * @param habilitada {@code true} para permitir agregar, modificar, eliminar y deshacer.
+     */
+    private void habilitarEdicion(boolean habilitada) {
+        agregarButton.setDisable(!habilitada);
+        modificarButton.setDisable(!habilitada);
+        eliminarButton.setDisable(!habilitada);
+        deshacerButton.setDisable(!habilitada);
+    }
 
-            Stage stage = new Stage();
-            stage.setTitle("Nueva Persona");
-            stage.setScene(new Scene(root));
-            stage.setResizable(false); // No se puede cambiar el tamaño
-            stage.initModality(Modality.APPLICATION_MODAL); // Modalidad
-            stage.showAndWait(); // Esperar a que se cierre la ventana
+    /**
+     * Guarda una instantánea local del listado de personas.
+     *
+     * @param lista     las personas a guardar.
+     * @param marcaAgua la suma de comprobación de la tabla al cargar las personas, o -1 si no se conoce.
+     */
+    private void guardarInstantanea(List<Persona> lista, long marcaAgua) {
+        try {
+            new InstantaneaPersonas(lista, marcaAgua).escribir(InstantaneaPersonas.rutaPorDefecto());
+            cambiosSinInstantanea = false;
+        } catch (IOException e) {
+            System.out.println("No se pudo guardar la instantánea de personas: " + e.getMessage());
+        }
+    }
 
+    /**
+     * Abre una nueva ventana para agregar una persona.
+     */
+    private void agregarPersona() {
+        try {
+            gestorDialogos.abrirNuevaPersona(tableView.getScene().getWindow());
         } catch (IOException e) {
             e.printStackTrace();
             mostrarAlerta("Error", "No se pudo abrir la ventana de agregar persona.");
@@ -97,19 +198,7 @@ public class HelloController {
         Persona personaSeleccionada = tableView.getSelectionModel().getSelectedItem();
         if (personaSeleccionada != null) {
             try {
-                FXMLLoader loader = new FXMLLoader(getClass().getResource("editarventana.fxml"));
-                Parent root = loader.load();
-
-                EditarPersonaController controller = loader.getController();
-                controller.setParentController(this); // Establecer el controlador padre
-                controller.cargarDatos(personaSeleccionada); // Cargar datos de la persona seleccionada
-
-                Stage stage = new Stage();
-                stage.setTitle("Modificar Persona");
-                stage.setScene(new Scene(root));
-                stage.setResizable(false); // No se puede cambiar el tamaño
-                stage.initModality(Modality.APPLICATION_MODAL); // Modalidad
-                stage.showAndWait(); // Esperar a que se cierre la ventana
+                gestorDialogos.abrirEditarPersona(tableView.getScene().getWindow(), personaSeleccionada);
 
                 // Después de que se cierra la ventana de edición, actualiza la tabla
                 actualizarTabla();
@@ -124,35 +213,52 @@ public class HelloController {
     }
 
     /**
-     * Elimina la persona seleccionada de la tabla y la base de datos.
+     * Elimina las personas seleccionadas de la tabla.
+     * <p>
+     * Las personas se envían a la papelera, que las elimina de la base de datos en segundo plano
+     * cuando termina la ventana de deshacer, sin bloquear la interfaz. En la tabla se quitan a
+     * través del {@link ActualizadorLista}, después de los cambios que ya tuviera pendientes.
+     * </p>
      */
     private void eliminarPersona() {
-        Persona personaSeleccionada = tableView.getSelectionModel().getSelectedItem();
-        if (personaSeleccionada != null) {
-            // Llama al método de eliminación en DaoPersona
-            boolean eliminadoEnBD = DaoPersona.eliminarPersona(personaSeleccionada);
-            if (eliminadoEnBD) {
-                personas.remove(personaSeleccionada);
-                mostrarAlerta("Éxito", "Persona eliminada con éxito.");
-            } else {
-                mostrarAlerta("Error", "No se pudo eliminar la persona de la base de datos.");
-            }
+        List<Persona> seleccionadas = new ArrayList<>(tableView.getSelectionModel().getSelectedItems());
+        if (!seleccionadas.isEmpty()) {
+            tableView.getSelectionModel().clearSelection();
+            actualizador.eliminar(seleccionadas);
+            papelera.eliminar(seleccionadas);
+            cambiosSinInstantanea = true;
         } else {
             mostrarAlerta("Advertencia", "Por favor, selecciona una persona para eliminar.");
         }
     }
 
+    /**
+     * Recupera las personas de la última eliminación si todavía no se han purgado.
+     */
+    private void deshacerEliminacion() {
+        List<Persona> recuperadas = papelera.deshacer();
+        if (!recuperadas.isEmpty()) {
+            actualizador.anadir(recuperadas);
+            cambiosSinInstantanea = true;
+        } else {
+            mostrarAlerta("Advertencia", "No hay ninguna eliminación que deshacer.");
+        }
+    }
+
     /**
      * Agrega una nueva persona a la lista y la guarda en la base de datos.
      *
      * @param nuevaPersona la persona que se va a agregar.
      */
     public void agregarPersona(Persona nuevaPersona) {
-        if (!personas.contains(nuevaPersona)) {
+        if (papelera.estaPendiente(nuevaPersona)) {
+            mostrarAlerta("Error", "Esta persona está pendiente de eliminación, usa Deshacer para recuperarla.");
+        } else if (!personas.contains(nuevaPersona)) {
             boolean guardadoEnBD = DaoPersona.nuevaPersona(nuevaPersona);
 
             if (guardadoEnBD) {
-                personas.add(nuevaPersona);  // Agrega a la lista y tabla si se guardó en la BD
+                actualizador.anadir(List.of(nuevaPersona));  // Agrega a la lista y tabla si se guardó en la BD
+                cambiosSinInstantanea = true;
                 mostrarAlerta("Éxito", "Persona agregada y guardada en la base de datos.");
             } else {
                 mostrarAlerta("Error", "No se pudo guardar en la base de datos.");
@@ -162,6 +268,43 @@ public class HelloController {
         }
     }
 
+    /**
+     * Libera los recursos del controlador al cerrar la aplicación, completando las eliminaciones pendientes.
+     * <p>
+     * Si ha habido cambios desde la última instantánea, guarda el listado actual con marca de agua -1
+     * (desconocida) para que el próximo arranque lo muestre al instante y lo reconcilie con la base de datos.
+     * </p>
+     */
+    public void cerrar() {
+        ResilienciaBBDD.getInstancia().removeListener(oyenteConexion);
+        papelera.cerrar();
+        if (cambiosSinInstantanea) {
+            guardarInstantanea(new ArrayList<>(personas), -1);
+        }
+    }
+
+    /**
+     * Muestra en la interfaz el estado de la conexión con la base de datos.
+     *
+     * @param estado el estado actual del circuito de conexión.
+     */
+    private void mostrarEstadoConexion(ResilienciaBBDD.EstadoCircuito estado) {
+        switch (estado) {
+            case CERRADO -> {
+                estadoConexionLabel.setText("Conectado");
+                estadoConexionLabel.setStyle("-fx-text-fill: green;");
+            }
+            case SEMIABIERTO -> {
+                estadoConexionLabel.setText("Reconectando...");
+                estadoConexionLabel.setStyle("-fx-text-fill: darkorange;");
+            }
+            case ABIERTO -> {
+                estadoConexionLabel.setText("Sin conexión");
+                estadoConexionLabel.setStyle("-fx-text-fill: red;");
+            }
+        }
+    }
+
     /**
      * Muestra una alerta de información al usuario.
      *
@@ -184,21 +327,114 @@ public class HelloController {
     }
 
     /**
-     * Filtra las personas mostradas en la tabla según el nombre ingresado.
+     * Notifica que los datos de una persona de la lista se han modificado, para que la vista
+     * filtrada y ordenada la vuelva a evaluar sin reconstruirse.
      *
-     * @param nombre el texto de filtro que se va a usar.
+     * @param persona la persona modificada.
      */
-    private void filtrarTabla(String nombre) {
-        if (nombre == null || nombre.isEmpty()) {
-            tableView.setItems(personas);
-        } else {
-            ObservableList<Persona> filtradas = FXCollections.observableArrayList();
-            for (Persona persona : personas) {
-                if (persona.getNombre().toLowerCase().contains(nombre.toLowerCase())) {
-                    filtradas.add(persona);
-                }
+    public void personaModificada(Persona persona) {
+        for (int i = 0; i < personas.size(); i++) {
+            if (personas.get(i) == persona) {
+                personas.set(i, persona); // Genera un cambio solo para esta fila
+                cambiosSinInstantanea = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Aplica a la vista ordenada el orden elegido en la tabla y lo guarda en las preferencias del usuario.
+     * <p>
+     * Manda la primera columna del orden de la tabla; los empates se deshacen siempre por las
+     * otras columnas, en el orden fijo de {@link OrdenesPersonas.Columna}.
+     * </p>
+     */
+    private void aplicarOrden() {
+        Preferences preferencias = Preferences.userNodeForPackage(HelloController.class);
+        if (tableView.getSortOrder().isEmpty()) {
+            personasOrdenadas.ordenar(null, true);
+            preferencias.remove(PREFERENCIA_COLUMNA);
+            return;
+        }
+        TableColumn<Persona, ?> columna = tableView.getSortOrder().get(0);
+        OrdenesPersonas.Columna orden = columna == nombreColumn ? OrdenesPersonas.Columna.NOMBRE
+                : columna == apellidosColumn ? OrdenesPersonas.Columna.APELLIDOS : OrdenesPersonas.Columna.EDAD;
+        boolean ascendente = columna.getSortType() == TableColumn.SortType.ASCENDING;
+        personasOrdenadas.ordenar(orden, ascendente);
+        preferencias.put(PREFERENCIA_COLUMNA, orden.name());
+        preferencias.putBoolean(PREFERENCIA_ASCENDENTE, ascendente);
+    }
+
+    /**
+     * Recupera el orden de la tabla guardado en las preferencias del usuario, si lo hay.
+     */
+    private void restaurarOrden() {
+        Preferences preferencias = Preferences.userNodeForPackage(HelloController.class);
+        TableColumn<Persona, ?> columna = switch (preferencias.get(PREFERENCIA_COLUMNA, "")) {
+            case "NOMBRE" -> nombreColumn;
+            case "APELLIDOS" -> apellidosColumn;
+            case "EDAD" -> edadColumn;
+            default -> null;
+        };
+        if (columna != null) {
+            columna.setSortType(preferencias.getBoolean(PREFERENCIA_ASCENDENTE, true)
+                    ? TableColumn.SortType.ASCENDING : TableColumn.SortType.DESCENDING);
+            tableView.getSortOrder().setAll(columna);
+        }
+    }
+
+    /**
+     * Filtra las personas mostradas en la tabla según el texto y el rango de edad indicados.
+     * <p>
+     * Solo cambia el predicado de la vista filtrada: no se copia la lista y se conservan el
+     * orden de la tabla y la selección de las filas que siguen visibles.
+     * </p>
+     */
+    private void filtrarTabla() {
+        String texto = filtroNombreField.getText() == null ? "" : filtroNombreField.getText().trim();
+        int edadMinima = leerEdad(edadMinimaField.getText(), 0);
+        int edadMaxima = leerEdad(edadMaximaField.getText(), Integer.MAX_VALUE);
+
+        if (texto.isEmpty() && edadMinima == 0 && edadMaxima == Integer.MAX_VALUE) {
+            personasFiltradas.setPredicate(null); // Sin filtro, todas visibles
+            return;
+        }
+        personasFiltradas.setPredicate(persona -> persona.getEdad() >= edadMinima
+                && persona.getEdad() <= edadMaxima
+                && (contiene(persona.getNombre(), texto) || contiene(persona.getApellidos(), texto)));
+    }
+
+    /**
+     * Lee un límite de edad del filtro.
+     *
+     * @param texto           el texto del campo.
+     * @param valorPorDefecto el valor si el campo está vacío o no es un número.
+     * @return la edad indicada o el valor por defecto.
+     */
+    private static int leerEdad(String texto, int valorPorDefecto) {
+        try {
+            return texto == null || texto.isBlank() ? valorPorDefecto : Integer.parseInt(texto.trim());
+        } catch (NumberFormatException e) {
+            return valorPorDefecto;
+        }
+    }
+
+    /**
+     * Comprueba si un texto contiene otro sin distinguir mayúsculas, sin crear cadenas intermedias.
+     *
+     * @param texto   el texto donde se busca.
+     * @param buscado el texto buscado.
+     * @return {@code true} si {@code texto} contiene {@code buscado}.
+     */
+    private static boolean contiene(String texto, String buscado) {
+        if (texto == null) {
+            return buscado.isEmpty();
+        }
+        for (int i = 0; i <= texto.length() - buscado.length(); i++) {
+            if (texto.regionMatches(true, i, buscado, 0, buscado.length())) {
+                return true;
             }
-            tableView.setItems(filtradas);
         }
+        return false;
     }
 }
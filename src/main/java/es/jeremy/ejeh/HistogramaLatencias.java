@@ -0,0 +1,124 @@
+package es.jeremy.ejeh;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias con precisión relativa constante, al estilo de HdrHistogram.
+ * <p>
+ * Los valores (en microsegundos) se agrupan en cubetas log-lineales: los valores menores de 64 se
+ * guardan exactos y el resto en 32 cubetas por cada potencia de dos, lo que da un error relativo
+ * máximo de alrededor del 3 %. Registrar un valor no reserva memoria ni bloquea, de modo que se
+ * puede usar desde miles de hilos a la vez.
+ * </p>
+ */
+public class HistogramaLatencias {
+    private static final int EXACTAS = 64;
+    private static final int CUBETAS_POR_POTENCIA = 32;
+    private static final int POTENCIAS = 40; // Hasta 2^45 µs, más de un año
+
+    private final AtomicLongArray cubetas = new AtomicLongArray(EXACTAS + POTENCIAS * CUBETAS_POR_POTENCIA);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * Registra una latencia.
+     *
+     * @param micros la latencia en microsegundos; los valores negativos se registran como cero.
+     */
+    public void registrar(long micros) {
+        long valor = Math.max(0, micros);
+        cubetas.incrementAndGet(indice(valor));
+        total.incrementAndGet();
+        maximo.accumulateAndGet(valor, Math::max);
+    }
+
+    /**
+     * Añade a este histograma todos los valores de otro.
+     *
+     * @param otro el histograma cuyos valores se suman.
+     */
+    public void sumar(HistogramaLatencias otro) {
+        for (int i = 0; i < cubetas.length(); i++) {
+            long cuenta = otro.cubetas.get(i);
+            if (cuenta != 0) {
+                cubetas.addAndGet(i, cuenta);
+            }
+        }
+        total.addAndGet(otro.total.get());
+        maximo.accumulateAndGet(otro.maximo.get(), Math::max);
+    }
+
+    /**
+     * Devuelve el número de valores registrados.
+     *
+     * @return el número de valores.
+     */
+    public long getTotal() {
+        return total.get();
+    }
+
+    /**
+     * Devuelve el mayor valor registrado.
+     *
+     * @return el valor máximo en microsegundos, o 0 si no hay valores.
+     */
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    /**
+     * Calcula el valor por debajo del cual queda el porcentaje indicado de los registros.
+     *
+     * @param percentil el percentil, entre 0 y 100.
+     * @return el valor del percentil en microsegundos, o 0 si no hay valores.
+     */
+    public long percentil(double percentil) {
+        long cuenta = total.get();
+        if (cuenta == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(percentil / 100.0 * cuenta));
+        long acumulado = 0;
+        for (int i = 0; i < cubetas.length(); i++) {
+            acumulado += cubetas.get(i);
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    /**
+     * Calcula la cubeta de un valor.
+     *
+     * @param valor el valor no negativo.
+     * @return el índice de su cubeta.
+     */
+    private static int indice(long valor) {
+        if (valor < EXACTAS) {
+            return (int) valor;
+        }
+        int desplazamiento = 63 - Long.numberOfLeadingZeros(valor) - 5; // valor >> desplazamiento queda en [32, 63]
+        if (desplazamiento > POTENCIAS) {
+            return EXACTAS + POTENCIAS * CUBETAS_POR_POTENCIA - 1;
+        }
+        int mantisa = (int) (valor >> desplazamiento) - CUBETAS_POR_POTENCIA;
+        return EXACTAS + (desplazamiento - 1) * CUBETAS_POR_POTENCIA + mantisa;
+    }
+
+    /**
+     * Devuelve el mayor valor que cae en una cubeta.
+     *
+     * @param indice el índice de la cubeta.
+     * @return el límite superior de la cubeta.
+     */
+    private static long limiteSuperior(int indice) {
+        if (indice < EXACTAS) {
+            return indice;
+        }
+        int desplazamiento = (indice - EXACTAS) / CUBETAS_POR_POTENCIA + 1;
+        long mantisa = (indice - EXACTAS) % CUBETAS_POR_POTENCIA + CUBETAS_POR_POTENCIA;
+        return ((mantisa + 1) << desplazamiento) - 1;
+    }
+}
@@ -0,0 +1,86 @@
+package es.jeremy.ejeh;
+
+import java.util.Objects;
+
+/**
+ * Contexto de inquilino de las operaciones con la base de datos: la delegación cuya agenda se usa.
+ * <p>
+ * El inquilino {@link #PREDETERMINADO} es el servidor principal de siempre, con sus réplicas de
+ * lectura. Los demás se declaran en la configuración con su propio servidor o esquema, y
+ * {@link GestorInquilinos} les asigna un pool de conexiones propio.
+ * </p>
+ */
+public final class Inquilino {
+
+    /**
+     * Inquilino del servidor principal, el que usan las operaciones que no indican ninguno.
+     */
+    public static final Inquilino PREDETERMINADO = new Inquilino("principal");
+
+    private final String id;
+
+    /**
+     * Crea el contexto de un inquilino.
+     *
+     * @param id el identificador del inquilino, tal como aparece en la configuración.
+     * @throws IllegalArgumentException si el identificador está vacío.
+     */
+    public Inquilino(String id) {
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("El identificador del inquilino no puede estar vacío");
+        }
+        this.id = id.trim();
+    }
+
+    /**
+     * Devuelve el identificador del inquilino.
+     *
+     * @return el identificador del inquilino
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Indica si es el inquilino del servidor principal.
+     *
+     * @return {@code true} si es el inquilino predeterminado
+     */
+    public boolean esPredeterminado() {
+        return equals(PREDETERMINADO);
+    }
+
+    /**
+     * Compara este inquilino con otro objeto.
+     *
+     * @param obj el objeto a comparar
+     * @return {@code true} si es un inquilino con el mismo identificador
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof Inquilino)) return false;
+        Inquilino inquilino = (Inquilino) obj;
+        return id.equals(inquilino.id);
+    }
+
+    /**
+     * Devuelve un valor hash para el inquilino.
+     *
+     * @return el código hash basado en el identificador
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    /**
+     * Devuelve el identificador del inquilino.
+     *
+     * @return el identificador del inquilino
+     */
+    @Override
+    public String toString() {
+        return id;
+    }
+}
@@ -0,0 +1,237 @@
+package es.jeremy.ejeh;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Instantánea local del listado de personas para arrancar la aplicación sin esperar a la base de datos.
+ * <p>
+ * El archivo tiene un formato binario compacto:
+ * </p>
+ * <ul>
+ *     <li>cabecera: la marca {@code EJPS}, la versión del formato, la marca de agua (el valor de
+ *     {@code CHECKSUM TABLE} de la tabla cuando se tomaron los datos), el número de cadenas y el
+ *     número de filas;</li>
+ *     <li>diccionario de cadenas: cada nombre o apellido distinto una sola vez, como longitud en
+ *     varint seguida de sus bytes UTF-8;</li>
+ *     <li>filas: índice del nombre, índice de los apellidos y edad, los tres en varint;</li>
+ *     <li>un CRC32 de todo lo anterior.</li>
+ * </ul>
+ * <p>
+ * La lectura proyecta el archivo en memoria y descarta la instantánea si la marca, la versión o el
+ * CRC no coinciden. La escritura se hace en un archivo temporal que sustituye al anterior de forma
+ * atómica, de modo que nunca queda una instantánea a medio escribir.
+ * </p>
+ */
+public class InstantaneaPersonas {
+    private static final int MARCA = 0x454A5053; // "EJPS"
+    private static final int VERSION = 1;
+
+    private final List<Persona> personas;
+    private final long marcaAgua;
+
+    /**
+     * Crea una instantánea con las personas y la marca de agua indicadas.
+     *
+     * @param personas  las personas de la instantánea.
+     * @param marcaAgua el estado de la tabla cuando se tomaron los datos.
+     */
+    public InstantaneaPersonas(List<Persona> personas, long marcaAgua) {
+        this.personas = personas;
+        this.marcaAgua = marcaAgua;
+    }
+
+    /**
+     * Devuelve la ruta por defecto de la instantánea, en el directorio de caché del usuario.
+     *
+     * @return la ruta del archivo de instantánea.
+     */
+    public static Path rutaPorDefecto() {
+        return Path.of(System.getProperty("user.home"), ".ejeh", "cache", "personas.snap");
+    }
+
+    /**
+     * Devuelve las personas de la instantánea.
+     *
+     * @return las personas.
+     */
+    public List<Persona> getPersonas() {
+        return personas;
+    }
+
+    /**
+     * Devuelve la marca de agua de la instantánea.
+     *
+     * @return el estado de la tabla cuando se tomaron los datos.
+     */
+    public long getMarcaAgua() {
+        return marcaAgua;
+    }
+
+    /**
+     * Guarda la instantánea en un archivo, sustituyendo de forma atómica al anterior.
+     *
+     * @param archivo el archivo de destino.
+     * @throws IOException si no se puede escribir.
+     */
+    public void escribir(Path archivo) throws IOException {
+        // Diccionario de cadenas: cada nombre o apellido distinto se guarda una sola vez
+        Map<String, Integer> indices = new HashMap<>();
+        List<byte[]> cadenas = new ArrayList<>();
+        int[] filas = new int[personas.size() * 3];
+        int tamano = 4 + 4 + 8 + 4 + 4;
+        for (int i = 0; i < personas.size(); i++) {
+            Persona persona = personas.get(i);
+            filas[i * 3] = indice(persona.getNombre(), indices, cadenas);
+            filas[i * 3 + 1] = indice(persona.getApellidos(), indices, cadenas);
+            filas[i * 3 + 2] = persona.getEdad();
+        }
+        for (byte[] cadena : cadenas) {
+            tamano += tamanoVarint(cadena.length) + cadena.length;
+        }
+        for (int valor : filas) {
+            tamano += tamanoVarint(valor);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(tamano + 8);
+        buffer.putInt(MARCA).putInt(VERSION).putLong(marcaAgua).putInt(cadenas.size()).putInt(personas.size());
+        for (byte[] cadena : cadenas) {
+            escribirVarint(buffer, cadena.length);
+            buffer.put(cadena);
+        }
+        for (int valor : filas) {
+            escribirVarint(buffer, valor);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+
+        Files.createDirectories(archivo.getParent());
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporal)) {
+            out.write(buffer.array(), 0, buffer.position());
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Lee una instantánea proyectando el archivo en memoria.
+     *
+     * @param archivo el archivo de la instantánea.
+     * @return la instantánea, o {@code null} si no existe o no es válida.
+     */
+    public static InstantaneaPersonas leer(Path archivo) {
+        if (!Files.isRegularFile(archivo)) {
+            return null;
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if (canal.size() < 32 || canal.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            int finDatos = buffer.limit() - 8;
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, finDatos));
+            if (crc.getValue() != buffer.getLong(finDatos)) {
+                System.out.println("Instantánea de personas dañada, se descarta");
+                return null;
+            }
+            if (buffer.getInt() != MARCA || buffer.getInt() != VERSION) {
+                return null;
+            }
+            long marcaAgua = buffer.getLong();
+            String[] cadenas = new String[buffer.getInt()];
+            int numFilas = buffer.getInt();
+            for (int i = 0; i < cadenas.length; i++) {
+                byte[] bytes = new byte[leerVarint(buffer)];
+                buffer.get(bytes);
+                cadenas[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            List<Persona> personas = new ArrayList<>(numFilas);
+            for (int i = 0; i < numFilas; i++) {
+                personas.add(new Persona(cadenas[leerVarint(buffer)], cadenas[leerVarint(buffer)], leerVarint(buffer)));
+            }
+            return new InstantaneaPersonas(personas, marcaAgua);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("No se pudo leer la instantánea de personas: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Devuelve el índice de una cadena en el diccionario, añadiéndola si no estaba.
+     *
+     * @param cadena  la cadena.
+     * @param indices los índices de las cadenas ya añadidas.
+     * @param cadenas los bytes UTF-8 de las cadenas ya añadidas, en orden.
+     * @return el índice de la cadena.
+     */
+    private static int indice(String cadena, Map<String, Integer> indices, List<byte[]> cadenas) {
+        String valor = cadena == null ? "" : cadena;
+        return indices.computeIfAbsent(valor, c -> {
+            cadenas.add(c.getBytes(StandardCharsets.UTF_8));
+            return cadenas.size() - 1;
+        });
+    }
+
+    /**
+     * Calcula cuántos bytes ocupa un entero no negativo codificado en varint.
+     *
+     * @param valor el valor.
+     * @return el número de bytes.
+     */
+    private static int tamanoVarint(int valor) {
+        int bytes = 1;
+        while ((valor & ~0x7F) != 0) {
+            valor >>>= 7;
+            bytes++;
+        }
+        return bytes;
+    }
+
+    /**
+     * Escribe un entero no negativo en varint: 7 bits por byte, con el bit alto indicando que sigue otro byte.
+     *
+     * @param buffer el buffer de destino.
+     * @param valor  el valor.
+     */
+    private static void escribirVarint(ByteBuffer buffer, int valor) {
+        while ((valor & ~0x7F) != 0) {
+            buffer.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        buffer.put((byte) valor);
+    }
+
+    /**
+     * Lee un entero codificado en varint.
+     *
+     * @param buffer el buffer de origen.
+     * @return el valor leído.
+     */
+    private static int leerVarint(ByteBuffer buffer) {
+        int valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 32; desplazamiento += 7) {
+            byte b = buffer.get();
+            valor |= (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("Varint demasiado largo");
+    }
+}
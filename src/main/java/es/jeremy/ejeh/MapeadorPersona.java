@@ -0,0 +1,82 @@
+package es.jeremy.ejeh;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Mapeador compilado de filas de la tabla Persona.
+ * <p>
+ * Resuelve la posición de las columnas una sola vez por {@code ResultSet}, en lugar de buscar
+ * cada columna por su nombre en cada fila, y opcionalmente deduplica los nombres y apellidos
+ * repetidos con una {@link CacheCadenas}. Puede crear objetos {@code Persona} o volcar las filas
+ * directamente en un {@link AlmacenColumnarPersonas}.
+ * </p>
+ */
+public class MapeadorPersona {
+    private final int columnaNombre;
+    private final int columnaApellidos;
+    private final int columnaEdad;
+    private final CacheCadenas cache; // Puede ser null si no se deduplica
+
+    /**
+     * Crea un mapeador con las posiciones de columna ya resueltas.
+     *
+     * @param columnaNombre    la posición de la columna nombre.
+     * @param columnaApellidos la posición de la columna apellidos.
+     * @param columnaEdad      la posición de la columna edad.
+     * @param cache            la caché de cadenas, o {@code null} para no deduplicar.
+     */
+    private MapeadorPersona(int columnaNombre, int columnaApellidos, int columnaEdad, CacheCadenas cache) {
+        this.columnaNombre = columnaNombre;
+        this.columnaApellidos = columnaApellidos;
+        this.columnaEdad = columnaEdad;
+        this.cache = cache;
+    }
+
+    /**
+     * Crea un mapeador para un {@code ResultSet} que contiene las columnas nombre, apellidos y edad.
+     *
+     * @param rs    el resultado de la consulta.
+     * @param cache la caché de cadenas, o {@code null} para no deduplicar.
+     * @return el mapeador con las columnas resueltas.
+     * @throws SQLException si falta alguna de las columnas.
+     */
+    public static MapeadorPersona para(ResultSet rs, CacheCadenas cache) throws SQLException {
+        return new MapeadorPersona(rs.findColumn("nombre"), rs.findColumn("apellidos"), rs.findColumn("edad"), cache);
+    }
+
+    /**
+     * Crea una persona con la fila actual del resultado.
+     *
+     * @param rs el resultado, posicionado en una fila.
+     * @return la persona de la fila actual.
+     * @throws SQLException si falla la lectura de la fila.
+     */
+    public Persona mapear(ResultSet rs) throws SQLException {
+        return new Persona(leerCadena(rs, columnaNombre), leerCadena(rs, columnaApellidos), rs.getInt(columnaEdad));
+    }
+
+    /**
+     * Vuelca la fila actual del resultado en un almacén columnar, sin crear ningún objeto {@code Persona}.
+     *
+     * @param rs      el resultado, posicionado en una fila.
+     * @param destino el almacén donde se añade la fila.
+     * @throws SQLException si falla la lectura de la fila.
+     */
+    public void mapearEn(ResultSet rs, AlmacenColumnarPersonas destino) throws SQLException {
+        destino.anadir(leerCadena(rs, columnaNombre), leerCadena(rs, columnaApellidos), rs.getInt(columnaEdad));
+    }
+
+    /**
+     * Lee una columna de texto, deduplicándola si hay caché.
+     *
+     * @param rs      el resultado, posicionado en una fila.
+     * @param columna la posición de la columna.
+     * @return el texto de la columna.
+     * @throws SQLException si falla la lectura.
+     */
+    private String leerCadena(ResultSet rs, int columna) throws SQLException {
+        String valor = rs.getString(columna);
+        return cache == null ? valor : cache.deduplicar(valor);
+    }
+}
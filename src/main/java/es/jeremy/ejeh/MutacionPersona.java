@@ -0,0 +1,57 @@
+package es.jeremy.ejeh;
+
+import java.util.Objects;
+
+/**
+ * Cambio pendiente de aplicar en la tabla Persona, para enviarlo a un {@link SuscriptorMutaciones}.
+ *
+ * @param operacion el tipo de cambio.
+ * @param antes     la persona antes del cambio, o {@code null} en un alta.
+ * @param despues   la persona después del cambio, o {@code null} en una baja.
+ */
+public record MutacionPersona(EventoAuditoria.Operacion operacion, Persona antes, Persona despues) {
+
+    /**
+     * Comprueba que el cambio tiene las personas que necesita su operación.
+     *
+     * @throws IllegalArgumentException si falta la persona anterior o la posterior.
+     */
+    public MutacionPersona {
+        Objects.requireNonNull(operacion, "operacion");
+        if ((operacion != EventoAuditoria.Operacion.ALTA && antes == null)
+                || (operacion != EventoAuditoria.Operacion.BAJA && despues == null)) {
+            throw new IllegalArgumentException("Faltan datos de la persona para " + operacion);
+        }
+    }
+
+    /**
+     * Crea el alta de una persona.
+     *
+     * @param persona la persona a añadir.
+     * @return el cambio.
+     */
+    public static MutacionPersona alta(Persona persona) {
+        return new MutacionPersona(EventoAuditoria.Operacion.ALTA, null, persona);
+    }
+
+    /**
+     * Crea la modificación de una persona.
+     *
+     * @param antes   la persona tal como está guardada.
+     * @param despues los nuevos datos de la persona.
+     * @return el cambio.
+     */
+    public static MutacionPersona modificacion(Persona antes, Persona despues) {
+        return new MutacionPersona(EventoAuditoria.Operacion.MODIFICACION, antes, despues);
+    }
+
+    /**
+     * Crea la baja de una persona.
+     *
+     * @param persona la persona a eliminar.
+     * @return el cambio.
+     */
+    public static MutacionPersona baja(Persona persona) {
+        return new MutacionPersona(EventoAuditoria.Operacion.BAJA, persona, null);
+    }
+}
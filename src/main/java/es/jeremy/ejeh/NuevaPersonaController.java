@@ -55,6 +55,10 @@ public class NuevaPersonaController {
         guardarButton.setOnAction(e -> guardarPersona());
         // Asignar acción al botón de cancelar
         cancelarButton.setOnAction(e -> cancelar());
+        // Validar cada campo al salir de él
+        ValidacionFormulario.vigilar(nombreField, ValidadorPersona.Campo.NOMBRE);
+        ValidacionFormulario.vigilar(apellidosField, ValidadorPersona.Campo.APELLIDOS);
+        ValidacionFormulario.vigilar(edadField, ValidadorPersona.Campo.EDAD);
     }
 
     /**
@@ -66,37 +70,40 @@ public class NuevaPersonaController {
         this.parentController = parentController;
     }
 
+    /**
+     * Vacía los campos del formulario para reutilizar la ventana en una nueva alta.
+     */
+    public void limpiar() {
+        for (TextField campo : new TextField[]{nombreField, apellidosField, edadField}) {
+            campo.clear();
+            ValidacionFormulario.marcar(campo, null);
+        }
+        nombreField.requestFocus();
+    }
+
     /**
      * Guarda los datos de la nueva persona si la validación es exitosa.
-     * Muestra una alerta si hay campos vacíos o si la edad no es un número válido.
+     * Los datos se validan y normalizan con {@link ValidadorPersona}; si hay errores se marcan
+     * los campos y se muestra una alerta con los motivos.
      */
     private void guardarPersona() {
-        // Obtener datos de los campos
-        String nombre = nombreField.getText();
-        String apellidos = apellidosField.getText();
-        int edad;
-
-        // Validación de los datos
-        if (nombre.isEmpty() || apellidos.isEmpty() || edadField.getText().isEmpty()) {
-            mostrarAlerta("Error", "Por favor, completa todos los campos.");
+        // Validar y normalizar los datos de los campos
+        ValidadorPersona.Resultado resultado =
+                ValidadorPersona.validar(nombreField.getText(), apellidosField.getText(), edadField.getText());
+        ValidacionFormulario.marcar(nombreField, resultado.errores().get(ValidadorPersona.Campo.NOMBRE));
+        ValidacionFormulario.marcar(apellidosField, resultado.errores().get(ValidadorPersona.Campo.APELLIDOS));
+        ValidacionFormulario.marcar(edadField, resultado.errores().get(ValidadorPersona.Campo.EDAD));
+        if (!resultado.esValido()) {
+            mostrarAlerta("Error", resultado.mensaje());
             return;
         }
 
-        try {
-            // Convertir la edad a un entero
-            edad = Integer.parseInt(edadField.getText());
-
-            // Crear la nueva persona y agregarla al controlador padre
-            Persona nuevaPersona = new Persona(nombre, apellidos, edad);
-            parentController.agregarPersona(nuevaPersona); // Agregar la nueva persona a la lista del controlador padre
+        // Agregar la nueva persona a la lista del controlador padre
+        parentController.agregarPersona(resultado.persona());
 
-            // Cerrar la ventana después de guardar
-            Stage stage = (Stage) guardarButton.getScene().getWindow();
-            stage.close();
-        } catch (NumberFormatException e) {
-            // Manejar error de conversión a entero
-            mostrarAlerta("Error", "La edad debe ser un número válido.");
-        }
+        // Cerrar la ventana después de guardar
+        Stage stage = (Stage) guardarButton.getScene().getWindow();
+        stage.close();
     }
 
     /**
@@ -0,0 +1,337 @@
+package es.jeremy.ejeh;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+
+import java.text.Collator;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vista ordenada de la lista de personas, servida desde órdenes precalculados por columna.
+ * <p>
+ * Para cada columna por la que se ha ordenado alguna vez se guarda la lista de personas en ese
+ * orden. La primera vez se construye con una ordenación en paralelo; a partir de ahí se mantiene
+ * al día con cada alta, baja o modificación de la lista base mediante búsqueda binaria, sin
+ * volver a ordenar. Cambiar de columna o de sentido solo cambia el orden del que lee
+ * {@link #get(int)}, sin ninguna comparación.
+ * </p>
+ * <p>
+ * El cambio de orden se notifica, eso sí, como un reemplazo de la lista entera, así que las
+ * vistas que haya encima lo procesan fila a fila: la {@code FilteredList} de la tabla vuelve a
+ * evaluar su predicado en las n filas. Un cambio de orden cuesta por tanto O(n) evaluaciones del
+ * filtro, frente a las O(n log n) comparaciones de volver a ordenar con una {@code SortedList}.
+ * </p>
+ * <p>
+ * Los empates se deshacen siempre con las otras dos columnas (apellidos, nombre y edad), así que
+ * el orden es total y no depende del orden de llegada. Los cambios masivos de la lista base, como
+ * una carga completa, descartan los órdenes guardados y solo se reconstruye el de la columna activa.
+ * </p>
+ */
+public class OrdenesPersonas extends ObservableListBase<Persona> {
+
+    /**
+     * Número mínimo de elementos cambiados a partir del cual se reconstruye el orden en vez de
+     * actualizarlo elemento a elemento. Además debe superar la cuarta parte de la lista.
+     */
+    private static final int UMBRAL_RECONSTRUCCION = 64;
+
+    // Collator no admite comparaciones simultáneas desde varios hilos, así que cada hilo usa el suyo
+    private static final ThreadLocal<Collator> COLLATOR = ThreadLocal.withInitial(Collator::getInstance);
+    private static final Comparator<String> TEXTO =
+            (a, b) -> COLLATOR.get().compare(a == null ? "" : a, b == null ? "" : b);
+
+    /**
+     * Columnas por las que se puede ordenar.
+     */
+    public enum Columna {
+        /**
+         * Por nombre, después apellidos y edad.
+         */
+        NOMBRE(Comparator.comparing(Persona::getNombre, TEXTO)
+                .thenComparing(Persona::getApellidos, TEXTO).thenComparingInt(Persona::getEdad)),
+        /**
+         * Por apellidos, después nombre y edad.
+         */
+        APELLIDOS(Comparator.comparing(Persona::getApellidos, TEXTO)
+                .thenComparing(Persona::getNombre, TEXTO).thenComparingInt(Persona::getEdad)),
+        /**
+         * Por edad, después apellidos y nombre.
+         */
+        EDAD(Comparator.comparingInt(Persona::getEdad)
+                .thenComparing(Persona::getApellidos, TEXTO).thenComparing(Persona::getNombre, TEXTO));
+
+        private final Comparator<Persona> comparador;
+
+        Columna(Comparator<Persona> comparador) {
+            this.comparador = comparador;
+        }
+    }
+
+    private final ObservableList<Persona> base;
+    private final Map<Columna, ArrayList<Persona>> ordenes = new EnumMap<>(Columna.class);
+    private Columna columna; // null: el orden de la lista base
+    private boolean ascendente = true;
+
+    /**
+     * Crea la vista sobre una lista base, inicialmente en el orden de esta.
+     *
+     * @param base la lista con todas las personas.
+     */
+    public OrdenesPersonas(ObservableList<Persona> base) {
+        this.base = base;
+        base.addListener((ListChangeListener<Persona>) this::baseCambiada);
+    }
+
+    /**
+     * Cambia el orden de la vista. Si ya se había ordenado por esa columna no se compara ningún
+     * elemento; si no, se construye su orden una vez. Los oyentes reciben un reemplazo de todas
+     * las filas.
+     *
+     * @param columna    la columna, o {@code null} para el orden de la lista base.
+     * @param ascendente {@code true} para orden ascendente, {@code false} para descendente.
+     */
+    public void ordenar(Columna columna, boolean ascendente) {
+        if (columna == this.columna && (columna == null || ascendente == this.ascendente)) {
+            return;
+        }
+        List<Persona> anterior = this.columna == null
+                ? Collections.unmodifiableList(base) : vista(ordenes.get(this.columna), this.ascendente);
+        if (columna != null) {
+            ordenes.computeIfAbsent(columna, this::construir);
+        }
+        this.columna = columna;
+        this.ascendente = ascendente;
+        beginChange();
+        nextReplace(0, size(), anterior);
+        endChange();
+    }
+
+    /**
+     * Devuelve la columna por la que está ordenada la vista.
+     *
+     * @return la columna, o {@code null} si sigue el orden de la lista base.
+     */
+    public Columna getColumna() {
+        return columna;
+    }
+
+    /**
+     * Indica si el orden es ascendente.
+     *
+     * @return {@code true} si es ascendente.
+     */
+    public boolean isAscendente() {
+        return ascendente;
+    }
+
+    /**
+     * Devuelve la persona de una posición de la vista.
+     *
+     * @param indice la posición.
+     * @return la persona en esa posición del orden activo.
+     */
+    @Override
+    public Persona get(int indice) {
+        if (columna == null) {
+            return base.get(indice);
+        }
+        List<Persona> orden = ordenes.get(columna);
+        return orden.get(ascendente ? indice : orden.size() - 1 - indice);
+    }
+
+    /**
+     * Devuelve el número de personas de la vista.
+     *
+     * @return el tamaño de la lista base.
+     */
+    @Override
+    public int size() {
+        return base.size();
+    }
+
+    /**
+     * Actualiza los órdenes guardados con un cambio de la lista base y avisa a los oyentes de la vista.
+     *
+     * @param cambio el cambio de la lista base.
+     */
+    private void baseCambiada(ListChangeListener.Change<? extends Persona> cambio) {
+        int cambiados = 0;
+        while (cambio.next()) {
+            cambiados += cambio.getAddedSize() + cambio.getRemovedSize();
+        }
+        cambio.reset();
+        boolean reconstruir = cambiados > UMBRAL_RECONSTRUCCION && cambiados > base.size() / 4;
+
+        if (columna == null) {
+            if (reconstruir) {
+                ordenes.clear(); // Se reconstruirán al volver a ordenar por cada columna
+            }
+            beginChange();
+            while (cambio.next()) {
+                if (!reconstruir) {
+                    actualizarOrdenes(cambio);
+                }
+                reenviar(cambio);
+            }
+            endChange();
+            return;
+        }
+
+        if (reconstruir) {
+            List<Persona> anterior = vista(ordenes.get(columna), ascendente);
+            ordenes.clear();
+            ordenes.put(columna, construir(columna));
+            beginChange();
+            nextReplace(0, size(), anterior);
+            endChange();
+            return;
+        }
+
+        beginChange();
+        while (cambio.next()) {
+            actualizarOrdenes(cambio);
+        }
+        endChange();
+    }
+
+    /**
+     * Aplica a todos los órdenes guardados las bajas y altas de un tramo de cambio y, para el
+     * orden activo, anota los cambios equivalentes en la vista.
+     *
+     * @param cambio el cambio de la lista base, situado en un tramo.
+     */
+    private void actualizarOrdenes(ListChangeListener.Change<? extends Persona> cambio) {
+        if (cambio.wasPermutated() || cambio.wasUpdated()) {
+            return; // El orden de la lista base no afecta a los órdenes por columna
+        }
+        for (Map.Entry<Columna, ArrayList<Persona>> entrada : ordenes.entrySet()) {
+            boolean activo = entrada.getKey() == columna;
+            ArrayList<Persona> orden = entrada.getValue();
+            Comparator<Persona> comparador = entrada.getKey().comparador;
+            for (Persona quitada : cambio.getRemoved()) {
+                int posicion = localizar(orden, quitada, comparador);
+                if (posicion < 0) {
+                    continue;
+                }
+                int tamano = orden.size();
+                orden.remove(posicion);
+                if (activo) {
+                    nextRemove(ascendente ? posicion : tamano - 1 - posicion, quitada);
+                }
+            }
+            for (Persona anadida : cambio.getAddedSubList()) {
+                int busqueda = Collections.binarySearch(orden, anadida, comparador);
+                int posicion = busqueda >= 0 ? busqueda : -busqueda - 1;
+                orden.add(posicion, anadida);
+                if (activo) {
+                    int indice = ascendente ? posicion : orden.size() - 1 - posicion;
+                    nextAdd(indice, indice + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reenvía a los oyentes de la vista un tramo de cambio de la lista base, cuando la vista sigue su orden.
+     *
+     * @param cambio el cambio de la lista base, situado en un tramo.
+     */
+    private void reenviar(ListChangeListener.Change<? extends Persona> cambio) {
+        if (cambio.wasPermutated()) {
+            int[] permutacion = new int[cambio.getTo() - cambio.getFrom()];
+            for (int i = 0; i < permutacion.length; i++) {
+                permutacion[i] = cambio.getPermutation(cambio.getFrom() + i);
+            }
+            nextPermutation(cambio.getFrom(), cambio.getTo(), permutacion);
+        } else if (cambio.wasUpdated()) {
+            for (int i = cambio.getFrom(); i < cambio.getTo(); i++) {
+                nextUpdate(i);
+            }
+        } else {
+            if (cambio.wasRemoved()) {
+                nextRemove(cambio.getFrom(), new ArrayList<>(cambio.getRemoved()));
+            }
+            if (cambio.wasAdded()) {
+                nextAdd(cambio.getFrom(), cambio.getTo());
+            }
+        }
+    }
+
+    /**
+     * Construye el orden de una columna ordenando en paralelo una copia de la lista base.
+     *
+     * @param columna la columna.
+     * @return las personas en el orden de la columna.
+     */
+    private ArrayList<Persona> construir(Columna columna) {
+        Persona[] personas = base.toArray(new Persona[0]);
+        Arrays.parallelSort(personas, columna.comparador);
+        return new ArrayList<>(Arrays.asList(personas));
+    }
+
+    /**
+     * Busca la posición de una persona concreta (la misma instancia) en un orden.
+     * <p>
+     * Se busca por búsqueda binaria y entre los elementos iguales; si la persona se ha modificado
+     * después de ordenarla, su posición ya no corresponde a sus datos y se busca recorriendo el orden.
+     * </p>
+     *
+     * @param orden      el orden.
+     * @param persona    la persona.
+     * @param comparador el comparador del orden.
+     * @return la posición, o {@code -1} si no está.
+     */
+    private static int localizar(List<Persona> orden, Persona persona, Comparator<Persona> comparador) {
+        int busqueda = Collections.binarySearch(orden, persona, comparador);
+        if (busqueda >= 0) {
+            for (int i = busqueda; i >= 0 && comparador.compare(orden.get(i), persona) == 0; i--) {
+                if (orden.get(i) == persona) {
+                    return i;
+                }
+            }
+            for (int i = busqueda + 1; i < orden.size() && comparador.compare(orden.get(i), persona) == 0; i++) {
+                if (orden.get(i) == persona) {
+                    return i;
+                }
+            }
+        }
+        for (int i = 0; i < orden.size(); i++) {
+            if (orden.get(i) == persona) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Devuelve una vista de solo lectura de un orden en el sentido indicado, sin copiarlo.
+     *
+     * @param orden      el orden.
+     * @param ascendente el sentido.
+     * @return la vista del orden.
+     */
+    private static List<Persona> vista(List<Persona> orden, boolean ascendente) {
+        if (ascendente) {
+            return Collections.unmodifiableList(orden);
+        }
+        return new AbstractList<>() {
+            @Override
+            public Persona get(int indice) {
+                return orden.get(orden.size() - 1 - indice);
+            }
+
+            @Override
+            public int size() {
+                return orden.size();
+            }
+        };
+    }
+}
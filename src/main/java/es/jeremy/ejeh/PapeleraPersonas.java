@@ -0,0 +1,156 @@
+package es.jeremy.ejeh;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Papelera de personas eliminadas con posibilidad de deshacer.
+ * <p>
+ * Las eliminaciones no se ejecutan en la base de datos de inmediato: las personas quedan
+ * marcadas como eliminadas (borrado lógico en el cliente) durante una ventana de tiempo en la
+ * que el usuario puede deshacer la operación. Pasada la ventana, un hilo en segundo plano las
+ * elimina físicamente en lotes mediante {@link DaoPersona#eliminarPersonas(List)}, de modo que
+ * el hilo de la interfaz nunca espera a la base de datos.
+ * </p>
+ */
+public class PapeleraPersonas {
+
+    /**
+     * Tiempo, en milisegundos, durante el que una eliminación puede deshacerse.
+     */
+    public static final long VENTANA_DESHACER_MS = 10_000;
+
+    private final Deque<Eliminacion> pendientes = new ArrayDeque<>(); // Eliminaciones aún reversibles
+    private final ScheduledExecutorService purgador;
+    private final Consumer<List<Persona>> alFallarPurga; // Recibe las personas que no se pudieron eliminar
+
+    /**
+     * Crea la papelera e inicia el purgado periódico en segundo plano.
+     *
+     * @param alFallarPurga acción que recibe las personas cuya eliminación física ha fallado, para
+     *                      que puedan volver a mostrarse. Se invoca desde el hilo de purgado.
+     */
+    public PapeleraPersonas(Consumer<List<Persona>> alFallarPurga) {
+        this.alFallarPurga = alFallarPurga;
+        this.purgador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "purgado-personas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        purgador.scheduleWithFixedDelay(this::purgarCaducadas, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Marca un grupo de personas como eliminadas. Se eliminarán físicamente al terminar la ventana
+     * de deshacer.
+     *
+     * @param personas las personas eliminadas por el usuario.
+     */
+    public synchronized void eliminar(List<Persona> personas) {
+        if (!personas.isEmpty()) {
+            pendientes.addLast(new Eliminacion(new ArrayList<>(personas), System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Deshace la última eliminación que todavía no se ha purgado.
+     *
+     * @return las personas recuperadas, o una lista vacía si no hay nada que deshacer.
+     */
+    public synchronized List<Persona> deshacer() {
+        Eliminacion ultima = pendientes.pollLast();
+        return ultima == null ? List.of() : ultima.personas;
+    }
+
+    /**
+     * Indica si una persona, identificada por nombre y apellidos, está pendiente de eliminación.
+     *
+     * @param persona la persona a comprobar.
+     * @return {@code true} si está en la papelera, {@code false} en caso contrario.
+     */
+    public synchronized boolean estaPendiente(Persona persona) {
+        for (Eliminacion eliminacion : pendientes) {
+            for (Persona pendiente : eliminacion.personas) {
+                if (pendiente.getNombre().equals(persona.getNombre())
+                        && pendiente.getApellidos().equals(persona.getApellidos())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Elimina físicamente todas las personas pendientes y detiene el purgado en segundo plano.
+     * Se debe llamar al cerrar la aplicación para no perder eliminaciones.
+     */
+    public void cerrar() {
+        purgador.shutdown();
+        try {
+            purgador.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        purgar(extraer(Long.MAX_VALUE));
+    }
+
+    /**
+     * Elimina físicamente las eliminaciones cuya ventana de deshacer ha terminado.
+     */
+    private void purgarCaducadas() {
+        purgar(extraer(System.currentTimeMillis() - VENTANA_DESHACER_MS));
+    }
+
+    /**
+     * Saca de la papelera las eliminaciones anteriores a un instante dado.
+     *
+     * @param limite el instante, en milisegundos, hasta el que se extraen eliminaciones.
+     * @return las personas extraídas.
+     */
+    private synchronized List<Persona> extraer(long limite) {
+        List<Persona> aPurgar = new ArrayList<>();
+        Iterator<Eliminacion> it = pendientes.iterator();
+        while (it.hasNext()) {
+            Eliminacion eliminacion = it.next();
+            if (eliminacion.instante > limite) {
+                break; // Las siguientes son más recientes
+            }
+            aPurgar.addAll(eliminacion.personas);
+            it.remove();
+        }
+        return aPurgar;
+    }
+
+    /**
+     * Elimina físicamente las personas en la base de datos, fuera de cualquier bloqueo de la papelera.
+     *
+     * @param personas las personas a eliminar.
+     */
+    private void purgar(List<Persona> personas) {
+        if (personas.isEmpty()) {
+            return;
+        }
+        int eliminadas = DaoPersona.eliminarPersonas(personas);
+        if (eliminadas < 0) {
+            alFallarPurga.accept(personas);
+        } else {
+            System.out.printf("Purgadas %d personas de la base de datos%n", eliminadas);
+        }
+    }
+
+    /**
+     * Grupo de personas eliminadas por una misma acción del usuario.
+     *
+     * @param personas las personas eliminadas.
+     * @param instante el instante de la eliminación, en milisegundos.
+     */
+    private record Eliminacion(List<Persona> personas, long instante) {
+    }
+}
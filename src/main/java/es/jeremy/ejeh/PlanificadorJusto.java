@@ -0,0 +1,210 @@
+package es.jeremy.ejeh;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limitador de operaciones simultáneas que reparte los turnos libres por clientes, no por orden de llegada.
+ * <p>
+ * Mientras hay capacidad libre, cualquier petición entra de inmediato. Cuando se agota, las
+ * peticiones esperan en una cola por cliente y cada turno que se libera pasa al siguiente
+ * cliente con peticiones pendientes, por rondas (round-robin). Así un cliente que encola miles
+ * de operaciones, como una importación masiva, solo recibe uno de cada tantos turnos como
+ * clientes haya esperando, en lugar de adelantar a todos los demás.
+ * </p>
+ */
+public class PlanificadorJusto {
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private final Map<String, Cliente> clientes = new HashMap<>(); // Protegido por el cerrojo
+    private final ArrayDeque<Cliente> ronda = new ArrayDeque<>();  // Clientes con esperas, por turno
+    private int capacidad;
+    private int enCurso;
+
+    /**
+     * Crea un planificador.
+     *
+     * @param capacidad el número máximo de operaciones simultáneas.
+     */
+    public PlanificadorJusto(int capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    /**
+     * Pide un turno para un cliente, esperando si no hay capacidad libre.
+     *
+     * @param cliente  el identificador del cliente.
+     * @param esperaMs el tiempo máximo de espera, en milisegundos.
+     * @return {@code true} si se ha concedido el turno, {@code false} si se agotó la espera.
+     * @throws InterruptedException si se interrumpe el hilo mientras espera.
+     */
+    public boolean adquirir(String cliente, long esperaMs) throws InterruptedException {
+        cerrojo.lock();
+        try {
+            Cliente estado = clientes.computeIfAbsent(cliente, Cliente::new);
+            if (enCurso < capacidad && ronda.isEmpty()) {
+                enCurso++;
+                estado.enCurso++;
+                return true;
+            }
+
+            Espera espera = new Espera(cerrojo.newCondition());
+            if (estado.esperas.isEmpty()) {
+                ronda.addLast(estado);
+            }
+            estado.esperas.addLast(espera);
+            long nanos = TimeUnit.MILLISECONDS.toNanos(esperaMs);
+            try {
+                while (!espera.concedida && nanos > 0) {
+                    nanos = espera.condicion.awaitNanos(nanos);
+                }
+            } catch (InterruptedException e) {
+                if (!espera.concedida) {
+                    retirar(estado, espera);
+                    throw e;
+                }
+                Thread.currentThread().interrupt(); // El turno ya es suyo: se entrega y se conserva la interrupción
+            }
+            if (!espera.concedida) {
+                retirar(estado, espera);
+            }
+            return espera.concedida;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Devuelve un turno, que pasa al siguiente cliente en espera si lo hay.
+     *
+     * @param cliente el identificador del cliente que devuelve el turno.
+     */
+    public void liberar(String cliente) {
+        cerrojo.lock();
+        try {
+            Cliente estado = clientes.get(cliente);
+            if (estado == null || estado.enCurso == 0) {
+                return;
+            }
+            estado.enCurso--;
+            enCurso--;
+            conceder();
+            if (estado.enCurso == 0 && estado.esperas.isEmpty()) {
+                clientes.remove(cliente);
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Cambia la capacidad, concediendo turnos a los que esperan si ha aumentado.
+     * Si disminuye, las operaciones en curso terminan con normalidad.
+     *
+     * @param capacidad el nuevo número máximo de operaciones simultáneas.
+     */
+    public void setCapacidad(int capacidad) {
+        cerrojo.lock();
+        try {
+            this.capacidad = capacidad;
+            conceder();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Devuelve el número de operaciones en curso de un cliente.
+     *
+     * @param cliente el identificador del cliente.
+     * @return las operaciones en curso.
+     */
+    public int getEnCurso(String cliente) {
+        cerrojo.lock();
+        try {
+            Cliente estado = clientes.get(cliente);
+            return estado == null ? 0 : estado.enCurso;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Devuelve el número de peticiones de un cliente que esperan turno.
+     *
+     * @param cliente el identificador del cliente.
+     * @return las peticiones en espera.
+     */
+    public int getEnEspera(String cliente) {
+        cerrojo.lock();
+        try {
+            Cliente estado = clientes.get(cliente);
+            return estado == null ? 0 : estado.esperas.size();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Concede turnos, por rondas entre los clientes en espera, mientras haya capacidad libre.
+     * Se llama con el cerrojo tomado.
+     */
+    private void conceder() {
+        while (enCurso < capacidad && !ronda.isEmpty()) {
+            Cliente siguiente = ronda.pollFirst();
+            Espera espera = siguiente.esperas.pollFirst();
+            espera.concedida = true;
+            espera.condicion.signal();
+            enCurso++;
+            siguiente.enCurso++;
+            if (!siguiente.esperas.isEmpty()) {
+                ronda.addLast(siguiente);
+            }
+        }
+    }
+
+    /**
+     * Quita de la cola una petición que ha dejado de esperar sin recibir turno.
+     * Se llama con el cerrojo tomado.
+     *
+     * @param estado el cliente de la petición.
+     * @param espera la petición.
+     */
+    private void retirar(Cliente estado, Espera espera) {
+        estado.esperas.remove(espera);
+        if (estado.esperas.isEmpty()) {
+            ronda.remove(estado);
+            if (estado.enCurso == 0) {
+                clientes.remove(estado.id);
+            }
+        }
+    }
+
+    /**
+     * Estado de un cliente: sus operaciones en curso y sus peticiones en espera.
+     */
+    private static class Cliente {
+        private final String id;
+        private final ArrayDeque<Espera> esperas = new ArrayDeque<>();
+        private int enCurso;
+
+        private Cliente(String id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Petición de turno en espera.
+     */
+    private static class Espera {
+        private final Condition condicion;
+        private boolean concedida;
+
+        private Espera(Condition condicion) {
+            this.condicion = condicion;
+        }
+    }
+}
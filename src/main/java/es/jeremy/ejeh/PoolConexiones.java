@@ -0,0 +1,312 @@
+package es.jeremy.ejeh;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool acotado de conexiones físicas a un servidor de base de datos.
+ * <p>
+ * Mantiene como máximo {@link ConfiguracionBBDD#getTamanoMaximoPool()} conexiones prestadas a la
+ * vez y reutiliza las conexiones devueltas en lugar de abrir una nueva para cada operación.
+ * Las conexiones se entregan envueltas, de modo que llamar a {@code close()} sobre ellas las
+ * devuelve al pool en vez de cerrarlas.
+ * </p>
+ */
+public class PoolConexiones {
+
+    /**
+     * Tiempo, en milisegundos, a partir del cual se comprueba una conexión inactiva antes de prestarla.
+     */
+    private static final long VALIDAR_TRAS_INACTIVIDAD_MS = 5_000;
+
+    private final String nombre;
+    private final String url;
+    private final ConfiguracionBBDD configuracion;
+    private final ResilienciaBBDD resiliencia;
+    private final Semaphore permisos;
+    private final Deque<Inactiva> inactivas = new ArrayDeque<>(); // Protegida por sí misma
+    private final AtomicInteger enUso = new AtomicInteger();
+    private final AtomicInteger abiertas = new AtomicInteger();
+    private final AtomicBoolean datosMostrados = new AtomicBoolean(); // Los datos de conexión se muestran una vez
+    private volatile boolean cerrado;
+
+    /**
+     * Crea un pool vacío; las conexiones se abren bajo demanda.
+     *
+     * @param nombre        el nombre del pool, usado en los mensajes.
+     * @param url           la URL JDBC del servidor.
+     * @param configuracion la configuración con el tamaño del pool y las propiedades del driver.
+     * @param resiliencia   la capa de resiliencia con la que se abren las conexiones del servidor.
+     */
+    public PoolConexiones(String nombre, String url, ConfiguracionBBDD configuracion, ResilienciaBBDD resiliencia) {
+        this(nombre, url, configuracion, resiliencia, configuracion.getTamanoMaximoPool());
+    }
+
+    /**
+     * Crea un pool vacío con un tamaño máximo distinto del configurado para los pools generales.
+     *
+     * @param nombre        el nombre del pool, usado en los mensajes.
+     * @param url           la URL JDBC del servidor.
+     * @param configuracion la configuración con las propiedades del driver.
+     * @param resiliencia   la capa de resiliencia con la que se abren las conexiones del servidor.
+     * @param tamanoMaximo  el número máximo de conexiones abiertas.
+     */
+    public PoolConexiones(String nombre, String url, ConfiguracionBBDD configuracion, ResilienciaBBDD resiliencia,
+                          int tamanoMaximo) {
+        this.nombre = nombre;
+        this.url = url;
+        this.configuracion = configuracion;
+        this.resiliencia = resiliencia;
+        this.permisos = new Semaphore(tamanoMaximo, true);
+    }
+
+    /**
+     * Presta una conexión del pool, esperando si todas están en uso.
+     *
+     * @return una conexión cuyo {@code close()} la devuelve al pool.
+     * @throws SQLException si el pool está cerrado, si no queda ninguna conexión libre dentro del
+     *                      tiempo máximo de espera o si no se puede abrir una conexión nueva.
+     */
+    public Connection obtener() throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool " + nombre + " está cerrado");
+        }
+        try {
+            if (!permisos.tryAcquire(configuracion.getEsperaMaximaPoolMs(), TimeUnit.MILLISECONDS)) {
+                throw new SQLException("No hay conexiones libres en el pool " + nombre, "HYT00");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido mientras se esperaba una conexión del pool " + nombre, e);
+        }
+
+        try {
+            Connection fisica = tomarInactiva();
+            if (fisica == null) {
+                fisica = resiliencia.obtenerConexion(this::abrirFisica);
+                abiertas.incrementAndGet();
+            }
+            enUso.incrementAndGet();
+            return envolver(fisica);
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Cierra el pool: cierra las conexiones inactivas y las prestadas se cerrarán al devolverse.
+     */
+    public void cerrar() {
+        cerrado = true;
+        synchronized (inactivas) {
+            for (Inactiva inactiva : inactivas) {
+                cerrarFisica(inactiva.conexion());
+            }
+            inactivas.clear();
+        }
+    }
+
+    /**
+     * Devuelve la configuración con la que se creó el pool.
+     *
+     * @return la configuración del pool.
+     */
+    public ConfiguracionBBDD getConfiguracion() {
+        return configuracion;
+    }
+
+    /**
+     * Devuelve la capa de resiliencia con la que el pool abre sus conexiones.
+     *
+     * @return la capa de resiliencia del servidor del pool.
+     */
+    public ResilienciaBBDD getResiliencia() {
+        return resiliencia;
+    }
+
+    /**
+     * Devuelve el nombre del pool.
+     *
+     * @return el nombre del pool.
+     */
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Devuelve el número de conexiones prestadas en este momento.
+     *
+     * @return las conexiones en uso.
+     */
+    public int getEnUso() {
+        return enUso.get();
+    }
+
+    /**
+     * Devuelve el número de conexiones físicas abiertas, prestadas o inactivas.
+     *
+     * @return las conexiones físicas abiertas.
+     */
+    public int getAbiertas() {
+        return abiertas.get();
+    }
+
+    /**
+     * Devuelve el número de hilos esperando una conexión libre.
+     *
+     * @return los hilos en espera.
+     */
+    public int getEnEspera() {
+        return permisos.getQueueLength();
+    }
+
+    /**
+     * Toma la conexión inactiva usada más recientemente, comprobando las que llevan tiempo sin usarse.
+     *
+     * @return una conexión válida, o {@code null} si no queda ninguna inactiva.
+     */
+    private Connection tomarInactiva() {
+        while (true) {
+            Inactiva inactiva;
+            synchronized (inactivas) {
+                inactiva = inactivas.pollFirst();
+            }
+            if (inactiva == null) {
+                return null;
+            }
+            try {
+                boolean reciente = System.currentTimeMillis() - inactiva.desde() < VALIDAR_TRAS_INACTIVIDAD_MS;
+                if (reciente || inactiva.conexion().isValid(1)) {
+                    return inactiva.conexion();
+                }
+            } catch (SQLException e) {
+                // La conexión ya no sirve, se descarta
+            }
+            cerrarFisica(inactiva.conexion());
+        }
+    }
+
+    /**
+     * Recibe una conexión física devuelta, restableciendo su estado antes de guardarla.
+     *
+     * @param fisica la conexión física devuelta.
+     */
+    private void devolver(Connection fisica) {
+        enUso.decrementAndGet();
+        try {
+            if (cerrado || fisica.isClosed()) {
+                cerrarFisica(fisica);
+                return;
+            }
+            if (!fisica.getAutoCommit()) {
+                fisica.rollback(); // Descartar cualquier transacción sin terminar
+                fisica.setAutoCommit(true);
+            }
+            synchronized (inactivas) {
+                inactivas.addFirst(new Inactiva(fisica, System.currentTimeMillis()));
+            }
+        } catch (SQLException e) {
+            cerrarFisica(fisica);
+        } finally {
+            permisos.release();
+        }
+    }
+
+    /**
+     * Abre una nueva conexión física con el servidor.
+     *
+     * @return la conexión abierta.
+     * @throws SQLException si falla la conexión.
+     */
+    private Connection abrirFisica() throws SQLException {
+        Connection conexion = DriverManager.getConnection(url, configuracion.propiedadesConexion());
+        conexion.setAutoCommit(true);
+
+        // Información de la base de datos para depuración, solo con la primera conexión del pool:
+        // las siguientes, los sondeos y las reposiciones no la cambian
+        if (datosMostrados.compareAndSet(false, true)) {
+            DatabaseMetaData databaseMetaData = conexion.getMetaData();
+            System.out.println("--- Datos de conexión (" + nombre + ") ---------------------------");
+            System.out.printf("Base de datos: %s%n", databaseMetaData.getDatabaseProductName());
+            System.out.printf("Versión: %s%n", databaseMetaData.getDatabaseProductVersion());
+            System.out.printf("Driver: %s%n", databaseMetaData.getDriverName());
+            System.out.printf("Versión: %s%n", databaseMetaData.getDriverVersion());
+            System.out.println("----------------------------------------------------------------");
+        }
+        return conexion;
+    }
+
+    /**
+     * Cierra una conexión física ignorando los errores.
+     *
+     * @param fisica la conexión a cerrar.
+     */
+    private void cerrarFisica(Connection fisica) {
+        abiertas.decrementAndGet();
+        try {
+            fisica.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Envuelve una conexión física para que {@code close()} la devuelva al pool una sola vez.
+     *
+     * @param fisica la conexión física.
+     * @return la conexión envuelta.
+     */
+    private Connection envolver(Connection fisica) {
+        boolean[] devuelta = {false};
+        return (Connection) Proxy.newProxyInstance(PoolConexiones.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, metodo, args) -> {
+                    switch (metodo.getName()) {
+                        case "close":
+                            synchronized (devuelta) {
+                                if (!devuelta[0]) {
+                                    devuelta[0] = true;
+                                    devolver(fisica);
+                                }
+                            }
+                            return null;
+                        case "isClosed":
+                            return devuelta[0] || fisica.isClosed();
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Conexión del pool " + nombre + " " + fisica;
+                        default:
+                            if (devuelta[0]) {
+                                throw new SQLException("La conexión ya se ha devuelto al pool " + nombre);
+                            }
+                            try {
+                                return metodo.invoke(fisica, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+
+    /**
+     * Conexión inactiva junto con el instante en que se devolvió.
+     *
+     * @param conexion la conexión física.
+     * @param desde    el instante de la devolución, en milisegundos.
+     */
+    private record Inactiva(Connection conexion, long desde) {
+    }
+}
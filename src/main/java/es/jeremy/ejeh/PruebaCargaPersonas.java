@@ -0,0 +1,321 @@
+package es.jeremy.ejeh;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Herramienta de prueba de carga y de resistencia para {@link DaoPersona}.
+ * <p>
+ * Lanza miles de clientes virtuales, cada uno en un hilo virtual, que ejecutan una mezcla
+ * configurable de operaciones contra la base de datos indicada en {@link ConfiguracionBBDD}
+ * (normalmente una MariaDB local de pruebas). Cada segundo informa del rendimiento, los
+ * percentiles de latencia, los errores y el uso del pool de conexiones, y lo guarda en un CSV.
+ * Al terminar escribe un resumen en un archivo de propiedades que se puede comparar con el de
+ * otra ejecución.
+ * </p>
+ * <p>
+ * Uso:
+ * </p>
+ * <pre>
+ * java es.jeremy.ejeh.PruebaCargaPersonas [--clientes=1000] [--duracion=60]
+ *      [--mezcla=listado:70,alta:20,modificacion:5,baja:5] [--salida=target/carga]
+ * java es.jeremy.ejeh.PruebaCargaPersonas --comparar=resumen-a.properties,resumen-b.properties
+ * </pre>
+ * <p>
+ * Las personas creadas por la prueba tienen el nombre {@code Carga-<cliente>}, con el número de
+ * cliente escrito en letras para que pase la validación, y se eliminan al final.
+ * </p>
+ */
+public class PruebaCargaPersonas {
+
+    /**
+     * Operaciones del DAO que ejecutan los clientes virtuales.
+     */
+    enum Operacion {
+        LISTADO, ALTA, MODIFICACION, BAJA
+    }
+
+    private static final String[] METRICAS_RESUMEN = {"operacionesPorSegundo", "p50Ms", "p90Ms", "p99Ms", "p999Ms", "maxMs", "errores"};
+
+    private final int clientes;
+    private final int duracionS;
+    private final Map<Operacion, Integer> mezcla;
+    private final Path salida;
+
+    private final Map<Operacion, HistogramaLatencias> totales = new EnumMap<>(Operacion.class);
+    private final Map<Operacion, AtomicLong> errores = new EnumMap<>(Operacion.class);
+    private volatile HistogramaLatencias intervalo = new HistogramaLatencias();
+    private final AtomicLong erroresIntervalo = new AtomicLong();
+
+    /**
+     * Crea una prueba de carga.
+     *
+     * @param clientes  el número de clientes virtuales concurrentes.
+     * @param duracionS la duración de la prueba, en segundos.
+     * @param mezcla    el peso relativo de cada operación.
+     * @param salida    el directorio donde se guardan los informes.
+     */
+    PruebaCargaPersonas(int clientes, int duracionS, Map<Operacion, Integer> mezcla, Path salida) {
+        this.clientes = clientes;
+        this.duracionS = duracionS;
+        this.mezcla = mezcla;
+        this.salida = salida;
+        for (Operacion operacion : Operacion.values()) {
+            totales.put(operacion, new HistogramaLatencias());
+            errores.put(operacion, new AtomicLong());
+        }
+    }
+
+    /**
+     * Punto de entrada de la herramienta.
+     *
+     * @param args los argumentos {@code --clave=valor} descritos en la documentación de la clase.
+     * @throws Exception si falla la escritura de los informes o se interrumpe la prueba.
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = new LinkedHashMap<>();
+        for (String arg : args) {
+            String[] partes = arg.replaceFirst("^--", "").split("=", 2);
+            opciones.put(partes[0], partes.length > 1 ? partes[1] : "");
+        }
+
+        if (opciones.containsKey("comparar")) {
+            String[] archivos = opciones.get("comparar").split(",");
+            comparar(Path.of(archivos[0]), Path.of(archivos[1]));
+            return;
+        }
+
+        Map<Operacion, Integer> mezcla = new EnumMap<>(Operacion.class);
+        for (String parte : opciones.getOrDefault("mezcla", "listado:70,alta:20,modificacion:5,baja:5").split(",")) {
+            String[] peso = parte.split(":");
+            mezcla.put(Operacion.valueOf(peso[0].trim().toUpperCase()), Integer.parseInt(peso[1].trim()));
+        }
+        new PruebaCargaPersonas(
+                Integer.parseInt(opciones.getOrDefault("clientes", "1000")),
+                Integer.parseInt(opciones.getOrDefault("duracion", "60")),
+                mezcla,
+                Path.of(opciones.getOrDefault("salida", "target/carga"))).ejecutar();
+    }
+
+    /**
+     * Ejecuta la prueba completa: lanza los clientes, informa cada segundo y escribe el resumen.
+     *
+     * @throws IOException          si no se pueden escribir los informes.
+     * @throws InterruptedException si se interrumpe la espera de los clientes.
+     */
+    void ejecutar() throws IOException, InterruptedException {
+        Files.createDirectories(salida);
+        String marca = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path csv = salida.resolve("carga-" + marca + ".csv");
+        long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(duracionS);
+        List<Persona> creadas = Collections.synchronizedList(new ArrayList<>());
+
+        System.out.printf("Prueba de carga: %d clientes, %d s, mezcla %s%n", clientes, duracionS, mezcla);
+        try (PrintWriter informe = new PrintWriter(Files.newBufferedWriter(csv, StandardCharsets.UTF_8));
+             ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            informe.println("segundo,operaciones,p50Ms,p90Ms,p99Ms,maxMs,errores,conexionesEnUso,conexionesAbiertas,hilosEsperando");
+            for (int i = 0; i < clientes; i++) {
+                int cliente = i;
+                hilos.submit(() -> cliente(cliente, fin, creadas));
+            }
+
+            for (int segundo = 1; System.nanoTime() < fin; segundo++) {
+                Thread.sleep(1_000);
+                HistogramaLatencias anterior = intervalo;
+                intervalo = new HistogramaLatencias();
+                PoolConexiones pool = ConexionBBDD.getPool();
+                String linea = String.format(Locale.ROOT, "%d,%d,%.3f,%.3f,%.3f,%.3f,%d,%d,%d,%d",
+                        segundo, anterior.getTotal(), anterior.percentil(50) / 1e3, anterior.percentil(90) / 1e3,
+                        anterior.percentil(99) / 1e3, anterior.getMaximo() / 1e3, erroresIntervalo.getAndSet(0),
+                        pool.getEnUso(), pool.getAbiertas(), pool.getEnEspera());
+                informe.println(linea);
+                informe.flush();
+                System.out.println(linea);
+            }
+        } // Cerrar el ejecutor espera a que terminen todos los clientes
+
+        System.out.printf("Eliminando %d personas de prueba%n", creadas.size());
+        DaoPersona.eliminarPersonas(new ArrayList<>(creadas));
+        escribirResumen(salida.resolve("resumen-" + marca + ".properties"));
+        System.out.println("Informe guardado en " + csv);
+        ConexionBBDD.cerrarPool();
+    }
+
+    /**
+     * Bucle de un cliente virtual: ejecuta operaciones elegidas según la mezcla hasta el final de la prueba.
+     *
+     * @param cliente el número del cliente.
+     * @param fin     el instante ({@code System.nanoTime()}) en que termina la prueba.
+     * @param creadas la lista compartida de personas creadas, para limpiarlas al final.
+     */
+    private void cliente(int cliente, long fin, List<Persona> creadas) {
+        List<Persona> propias = new ArrayList<>();
+        AlmacenColumnarPersonas listado = new AlmacenColumnarPersonas(1024); // Se reutiliza en cada listado
+        int pesoTotal = mezcla.values().stream().mapToInt(Integer::intValue).sum();
+        int secuencia = 0;
+        while (System.nanoTime() < fin) {
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            Operacion operacion = elegir(aleatorio.nextInt(pesoTotal));
+            if ((operacion == Operacion.MODIFICACION || operacion == Operacion.BAJA) && propias.isEmpty()) {
+                operacion = Operacion.ALTA; // No hay nada propio que modificar o eliminar todavía
+            }
+
+            long inicio = System.nanoTime();
+            boolean correcto;
+            switch (operacion) {
+                case LISTADO -> correcto = DaoPersona.cargarListadoPersonas(Inquilino.PREDETERMINADO, listado);
+                case ALTA -> {
+                    Persona persona = new Persona("Carga-" + letras(cliente), "Apellido-" + letras(secuencia++), aleatorio.nextInt(100));
+                    correcto = DaoPersona.nuevaPersona(persona);
+                    if (correcto) {
+                        propias.add(persona);
+                    }
+                }
+                case MODIFICACION -> {
+                    Persona antigua = propias.get(aleatorio.nextInt(propias.size()));
+                    Persona nueva = new Persona(antigua.getNombre(), antigua.getApellidos(), aleatorio.nextInt(100));
+                    correcto = DaoPersona.modificarPersona(antigua, nueva) > 0;
+                    if (correcto) {
+                        antigua.setEdad(nueva.getEdad());
+                    }
+                }
+                default -> {
+                    Persona persona = propias.remove(propias.size() - 1);
+                    correcto = DaoPersona.eliminarPersona(persona);
+                }
+            }
+            long micros = (System.nanoTime() - inicio) / 1_000;
+            intervalo.registrar(micros);
+            totales.get(operacion).registrar(micros);
+            if (!correcto) {
+                errores.get(operacion).incrementAndGet();
+                erroresIntervalo.incrementAndGet();
+            }
+        }
+        creadas.addAll(propias);
+    }
+
+    /**
+     * Elige una operación a partir de un número aleatorio entre 0 y la suma de los pesos.
+     *
+     * @param valor el número aleatorio.
+     * @return la operación correspondiente.
+     */
+    private Operacion elegir(int valor) {
+        for (Map.Entry<Operacion, Integer> entrada : mezcla.entrySet()) {
+            valor -= entrada.getValue();
+            if (valor < 0) {
+                return entrada.getKey();
+            }
+        }
+        return Operacion.LISTADO;
+    }
+
+    /**
+     * Escribe el resumen de la prueba, global y por operación, en un archivo de propiedades.
+     *
+     * @param archivo el archivo de resumen.
+     * @throws IOException si no se puede escribir.
+     */
+    private void escribirResumen(Path archivo) throws IOException {
+        Properties resumen = new Properties();
+        resumen.setProperty("clientes", String.valueOf(clientes));
+        resumen.setProperty("duracionS", String.valueOf(duracionS));
+        resumen.setProperty("mezcla", mezcla.toString());
+        HistogramaLatencias global = new HistogramaLatencias();
+        long erroresGlobales = 0;
+        for (Operacion operacion : Operacion.values()) {
+            HistogramaLatencias histograma = totales.get(operacion);
+            global.sumar(histograma);
+            erroresGlobales += errores.get(operacion).get();
+            guardarMetricas(resumen, operacion.name().toLowerCase() + ".", histograma, errores.get(operacion).get());
+        }
+        guardarMetricas(resumen, "total.", global, erroresGlobales);
+        try (Writer writer = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            resumen.store(writer, "Resumen de la prueba de carga de DaoPersona");
+        }
+        System.out.println("Resumen:");
+        for (String metrica : METRICAS_RESUMEN) {
+            System.out.printf("  %s = %s%n", metrica, resumen.getProperty("total." + metrica));
+        }
+    }
+
+    /**
+     * Añade al resumen las métricas de un histograma con un prefijo.
+     *
+     * @param resumen    las propiedades del resumen.
+     * @param prefijo    el prefijo de las claves.
+     * @param histograma el histograma de latencias.
+     * @param numErrores el número de errores.
+     */
+    private void guardarMetricas(Properties resumen, String prefijo, HistogramaLatencias histograma, long numErrores) {
+        resumen.setProperty(prefijo + "operaciones", String.valueOf(histograma.getTotal()));
+        resumen.setProperty(prefijo + "operacionesPorSegundo", String.valueOf(histograma.getTotal() / Math.max(1, duracionS)));
+        resumen.setProperty(prefijo + "p50Ms", String.valueOf(histograma.percentil(50) / 1e3));
+        resumen.setProperty(prefijo + "p90Ms", String.valueOf(histograma.percentil(90) / 1e3));
+        resumen.setProperty(prefijo + "p99Ms", String.valueOf(histograma.percentil(99) / 1e3));
+        resumen.setProperty(prefijo + "p999Ms", String.valueOf(histograma.percentil(99.9) / 1e3));
+        resumen.setProperty(prefijo + "maxMs", String.valueOf(histograma.getMaximo() / 1e3));
+        resumen.setProperty(prefijo + "errores", String.valueOf(numErrores));
+    }
+
+    /**
+     * Compara los resúmenes de dos ejecuciones y muestra la variación de cada métrica global.
+     *
+     * @param base      el resumen de referencia.
+     * @param candidato el resumen que se compara con la referencia.
+     * @throws IOException si no se pueden leer los archivos.
+     */
+    static void comparar(Path base, Path candidato) throws IOException {
+        Properties a = new Properties();
+        Properties b = new Properties();
+        try (Reader ra = Files.newBufferedReader(base, StandardCharsets.UTF_8);
+             Reader rb = Files.newBufferedReader(candidato, StandardCharsets.UTF_8)) {
+            a.load(ra);
+            b.load(rb);
+        }
+        System.out.printf("%-24s %14s %14s %9s%n", "métrica", base.getFileName(), candidato.getFileName(), "cambio");
+        for (String metrica : METRICAS_RESUMEN) {
+            double va = Double.parseDouble(a.getProperty("total." + metrica, "0"));
+            double vb = Double.parseDouble(b.getProperty("total." + metrica, "0"));
+            String cambio = va == 0 ? "-" : String.format("%+.1f%%", (vb - va) / va * 100);
+            System.out.printf("%-24s %14.3f %14.3f %9s%n", metrica, va, vb, cambio);
+        }
+    }
+
+    /**
+     * Escribe un número no negativo con letras (a, b, ..., z, ba, bb, ...), porque los nombres
+     * y apellidos no admiten dígitos.
+     *
+     * @param numero el número.
+     * @return el número en base 26 con las letras de la a a la z.
+     */
+    private static String letras(int numero) {
+        StringBuilder texto = new StringBuilder();
+        do {
+            texto.append((char) ('a' + numero % 26));
+            numero /= 26;
+        } while (numero > 0);
+        return texto.reverse().toString();
+    }
+}
@@ -0,0 +1,256 @@
+package es.jeremy.ejeh;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publicador de las filas de una consulta de personas, que solo las lee a medida que se piden.
+ * <p>
+ * Cada suscripción tiene su propio hilo, su conexión y su cursor. El hilo espera a que el
+ * suscriptor pida filas antes de abrir la conexión y antes de avanzar el cursor, de modo que la
+ * lectura va al ritmo del suscriptor: con {@code consulta.fetchSize} mayor que cero el controlador
+ * trae las filas del servidor en bloques de ese tamaño y nunca acumula más de un bloque sin entregar.
+ * </p>
+ * <p>
+ * La consulta no lleva el tiempo máximo de {@code timeout.consultaS}: su duración la marca el
+ * ritmo del suscriptor, no el servidor. En su lugar, el servidor corta la consulta si el
+ * suscriptor pasa más de {@code publicador.inactividadMaximaS} segundos sin leer. Como cada
+ * suscripción retiene una conexión y un turno de su inquilino mientras dura, solo
+ * {@code publicador.maximoSuscripciones} por inquilino pueden tener la conexión abierta a la vez;
+ * las demás esperan hasta {@code pool.esperaMaximaMs} y, si no consiguen turno, terminan con error.
+ * </p>
+ * <p>
+ * Todas las señales al suscriptor salen del hilo de la suscripción, en orden. Una petición de cero
+ * o menos filas termina la suscripción con {@link IllegalArgumentException}, y si el suscriptor
+ * lanza una excepción al recibir una fila se cancela la suscripción. Cualquier otro error,
+ * también los inesperados al leer o mapear las filas, termina la suscripción con {@code onError}.
+ * </p>
+ */
+class PublicadorPersonas implements Flow.Publisher<Persona> {
+
+    // Suscripciones con conexión abierta por inquilino; el límite se lee al crear cada semáforo
+    private static final Map<String, Semaphore> CONEXIONES_ABIERTAS = new ConcurrentHashMap<>();
+
+    private final Inquilino inquilino;
+    private final String consulta;
+
+    /**
+     * Crea un publicador para una consulta que devuelve las columnas de {@link MapeadorPersona}.
+     *
+     * @param inquilino el inquilino cuya base de datos se usa.
+     * @param consulta  la consulta SQL, sin parámetros.
+     */
+    PublicadorPersonas(Inquilino inquilino, String consulta) {
+        this.inquilino = inquilino;
+        this.consulta = consulta;
+    }
+
+    /**
+     * Suscribe un suscriptor y arranca el hilo que le entregará las filas.
+     *
+     * @param suscriptor el suscriptor.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super Persona> suscriptor) {
+        Objects.requireNonNull(suscriptor, "suscriptor");
+        Suscripcion suscripcion = new Suscripcion(suscriptor);
+        Thread hilo = new Thread(suscripcion::emitir, "publicador-personas");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Suscripción de un suscriptor, con la demanda pendiente que regula la lectura del cursor.
+     */
+    private final class Suscripcion implements Flow.Subscription {
+        private final Flow.Subscriber<? super Persona> suscriptor;
+        private final ReentrantLock cerrojo = new ReentrantLock();
+        private final Condition cambio = cerrojo.newCondition();
+        private long demanda;
+        private boolean cancelada;
+        private IllegalArgumentException peticionErronea;
+
+        private Suscripcion(Flow.Subscriber<? super Persona> suscriptor) {
+            this.suscriptor = suscriptor;
+        }
+
+        /**
+         * Añade filas a la demanda pendiente.
+         *
+         * @param n el número de filas pedidas; debe ser mayor que cero.
+         */
+        @Override
+        public void request(long n) {
+            cerrojo.lock();
+            try {
+                if (n <= 0) {
+                    peticionErronea = new IllegalArgumentException("Se deben pedir más de cero filas: " + n);
+                } else {
+                    long total = demanda + n;
+                    demanda = total < 0 ? Long.MAX_VALUE : total; // Sin límite si se desborda
+                }
+                cambio.signal();
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+
+        /**
+         * Cancela la suscripción; el hilo deja de leer y cierra la conexión.
+         */
+        @Override
+        public void cancel() {
+            cerrojo.lock();
+            try {
+                cancelada = true;
+                cambio.signal();
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+
+        /**
+         * Entrega las filas de la consulta según la demanda y termina con {@code onComplete} u {@code onError}.
+         */
+        private void emitir() {
+            suscriptor.onSubscribe(this);
+            ResilienciaBBDD resiliencia = GestorInquilinos.getResiliencia(inquilino);
+            boolean terminada = false;
+            try {
+                if (!esperarDemanda()) {
+                    return; // Cancelada antes de pedir nada: no se llega a abrir la conexión
+                }
+                ConfiguracionBBDD configuracion = ConfiguracionBBDD.getActual();
+                GestorInquilinos.comprobarConfigurado(inquilino, configuracion); // Sin semáforo para inquilinos desconocidos
+                Semaphore turnos = CONEXIONES_ABIERTAS.computeIfAbsent(inquilino.getId(),
+                        id -> new Semaphore(configuracion.getMaximoSuscripciones(), true));
+                if (!turnos.tryAcquire(configuracion.getEsperaMaximaPoolMs(), TimeUnit.MILLISECONDS)) {
+                    suscriptor.onError(new SQLTransientConnectionException("Demasiadas suscripciones al listado del inquilino "
+                            + inquilino.getId(), "HYT00"));
+                    return;
+                }
+                try (ConexionBBDD conexion = ConexionBBDD.lectura(inquilino)) {
+                    resiliencia = conexion.getResiliencia(); // El de la réplica, si la lectura va a una
+                    try (Connection conn = conexion.getConexion();
+                         Statement stmt = conn.createStatement()) {
+                        // Sin tiempo máximo de consulta: el cursor dura lo que tarde el suscriptor en pedir las filas
+                        stmt.setFetchSize(configuracion.getFetchSize());
+                        emitirFilas(stmt, "SET STATEMENT net_write_timeout = "
+                                + configuracion.getInactividadSuscripcionS() + " FOR " + consulta);
+                    }
+                    resiliencia.registrarExito();
+                } finally {
+                    turnos.release();
+                }
+                terminada = true;
+            } catch (SQLException e) {
+                resiliencia.registrarError(e);
+                System.out.println("Error al publicar listado de personas: " + e.getMessage());
+                if (!isCancelada()) {
+                    suscriptor.onError(e);
+                }
+            } catch (IllegalArgumentException e) {
+                suscriptor.onError(e);
+            } catch (RuntimeException e) {
+                // Un fallo inesperado, por ejemplo al mapear una fila, no puede dejar al suscriptor esperando
+                System.out.println("Error al publicar listado de personas: " + e);
+                if (!isCancelada()) {
+                    suscriptor.onError(e);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Fuera del try, para no enviar onError si es el propio onComplete el que falla
+            if (terminada && !isCancelada()) {
+                suscriptor.onComplete();
+            }
+        }
+
+        /**
+         * Ejecuta la consulta y entrega sus filas según la demanda, hasta terminar o cancelarse.
+         *
+         * @param stmt  la sentencia.
+         * @param sql   la consulta a ejecutar.
+         * @throws SQLException         si falla la lectura.
+         * @throws InterruptedException si se interrumpe el hilo mientras espera demanda.
+         */
+        private void emitirFilas(Statement stmt, String sql) throws SQLException, InterruptedException {
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                MapeadorPersona mapeador = MapeadorPersona.para(rs, new CacheCadenas(DaoPersona.CAPACIDAD_CACHE_CADENAS));
+                boolean primera = true;
+                while ((primera || esperarDemanda()) && rs.next()) {
+                    primera = false; // La demanda de la primera fila ya se consumió al abrir la conexión
+                    if (!entregar(mapeador.mapear(rs))) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Espera a que haya demanda y consume una unidad.
+         *
+         * @return {@code true} si se puede entregar una fila, {@code false} si se ha cancelado.
+         * @throws InterruptedException     si se interrumpe el hilo mientras espera.
+         * @throws IllegalArgumentException si el suscriptor ha hecho una petición no válida.
+         */
+        private boolean esperarDemanda() throws InterruptedException {
+            cerrojo.lock();
+            try {
+                while (demanda == 0 && !cancelada && peticionErronea == null) {
+                    cambio.await();
+                }
+                if (peticionErronea != null && !cancelada) {
+                    cancelada = true;
+                    throw peticionErronea;
+                }
+                if (cancelada) {
+                    return false;
+                }
+                if (demanda != Long.MAX_VALUE) {
+                    demanda--;
+                }
+                return true;
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+
+        /**
+         * Entrega una fila al suscriptor, cancelando la suscripción si este falla al recibirla.
+         *
+         * @param persona la fila.
+         * @return {@code true} si se puede seguir entregando filas.
+         */
+        private boolean entregar(Persona persona) {
+            try {
+                suscriptor.onNext(persona);
+                return true;
+            } catch (RuntimeException e) {
+                System.out.println("El suscriptor falló al recibir una persona: " + e.getMessage());
+                cancel();
+                return false;
+            }
+        }
+
+        private boolean isCancelada() {
+            cerrojo.lock();
+            try {
+                return cancelada;
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+    }
+}
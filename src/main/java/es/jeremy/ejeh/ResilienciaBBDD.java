@@ -0,0 +1,356 @@
+package es.jeremy.ejeh;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Capa de resiliencia para el acceso a la base de datos.
+ * <p>
+ * Envuelve la obtención de conexiones con reintentos acotados y espera exponencial con
+ * variación aleatoria (jitter), y con un cortocircuito (circuit breaker) que, cuando la base de
+ * datos no responde, hace fallar de inmediato las operaciones en lugar de esperar cada vez el
+ * tiempo de conexión completo. Mientras el circuito está abierto se sondea periódicamente la
+ * base de datos para detectar su recuperación.
+ * </p>
+ * <p>
+ * Los cambios de estado del circuito se notifican a los oyentes registrados, por ejemplo
+ * a la interfaz de usuario.
+ * </p>
+ */
+public class ResilienciaBBDD {
+
+    /**
+     * Estados posibles del cortocircuito.
+     */
+    public enum EstadoCircuito {
+        /**
+         * La base de datos responde y las operaciones se ejecutan con normalidad.
+         */
+        CERRADO,
+        /**
+         * La base de datos no responde y las operaciones fallan de inmediato.
+         */
+        ABIERTO,
+        /**
+         * Se está comprobando si la base de datos se ha recuperado.
+         */
+        SEMIABIERTO
+    }
+
+    /**
+     * Operación que abre una conexión física con la base de datos.
+     */
+    @FunctionalInterface
+    public interface AperturaConexion {
+        /**
+         * Abre una conexión con la base de datos.
+         *
+         * @return la conexión abierta.
+         * @throws SQLException si no se puede conectar.
+         */
+        Connection abrir() throws SQLException;
+    }
+
+    private static final ResilienciaBBDD INSTANCIA = new ResilienciaBBDD(ConfiguracionBBDD.getActual());
+
+    private volatile int maxReintentos;       // Intentos adicionales tras el primer fallo
+    private volatile long esperaBaseMs;       // Espera inicial entre reintentos
+    private volatile long esperaMaximaMs;     // Tope de la espera entre reintentos
+    private volatile int umbralFallos;        // Fallos consecutivos que abren el circuito
+    private volatile long intervaloSondeoMs;  // Frecuencia del sondeo con el circuito abierto
+    private volatile ConfiguracionBBDD configuracion; // Configuración aplicada, si se creó a partir de una
+
+    private volatile EstadoCircuito estado = EstadoCircuito.CERRADO;
+    private volatile int fallosConsecutivos;
+    private AperturaConexion ultimaApertura; // Última forma de conectar, usada para el sondeo
+    private SQLException ultimoErrorRegistrado; // Evita contar dos veces el mismo error
+
+    private final List<Consumer<EstadoCircuito>> oyentes = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService sondeo = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread hilo = new Thread(r, "sondeo-bbdd");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    /**
+     * Crea una capa de resiliencia con los parámetros indicados.
+     *
+     * @param maxReintentos     el número de reintentos tras un fallo de conexión.
+     * @param esperaBaseMs      la espera inicial entre reintentos, en milisegundos.
+     * @param esperaMaximaMs    la espera máxima entre reintentos, en milisegundos.
+     * @param umbralFallos      el número de fallos consecutivos que abren el circuito.
+     * @param intervaloSondeoMs el intervalo entre sondeos con el circuito abierto, en milisegundos.
+     */
+    ResilienciaBBDD(int maxReintentos, long esperaBaseMs, long esperaMaximaMs, int umbralFallos, long intervaloSondeoMs) {
+        this.maxReintentos = maxReintentos;
+        this.esperaBaseMs = esperaBaseMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.umbralFallos = umbralFallos;
+        this.intervaloSondeoMs = intervaloSondeoMs;
+    }
+
+    /**
+     * Crea una capa de resiliencia con los parámetros de la configuración indicada.
+     *
+     * @param configuracion la configuración de la base de datos.
+     */
+    ResilienciaBBDD(ConfiguracionBBDD configuracion) {
+        this(configuracion.getReintentos(), configuracion.getEsperaBaseMs(), configuracion.getEsperaMaximaMs(),
+                configuracion.getUmbralFallos(), configuracion.getIntervaloSondeoMs());
+        this.configuracion = configuracion;
+    }
+
+    /**
+     * Devuelve la capa de resiliencia compartida por toda la aplicación.
+     * <p>
+     * Si la configuración se ha recargado desde la última llamada, aplica antes sus claves
+     * {@code resiliencia.*}. La instancia es siempre la misma, así que se conservan el estado del
+     * circuito y los oyentes registrados.
+     * </p>
+     *
+     * @return la instancia compartida.
+     */
+    public static ResilienciaBBDD getInstancia() {
+        INSTANCIA.aplicar(ConfiguracionBBDD.getActual());
+        return INSTANCIA;
+    }
+
+    /**
+     * Aplica los parámetros de una configuración, si es distinta de la aplicada.
+     *
+     * @param nueva la configuración vigente.
+     */
+    private void aplicar(ConfiguracionBBDD nueva) {
+        if (nueva == configuracion) {
+            return;
+        }
+        synchronized (this) {
+            if (nueva == configuracion) {
+                return;
+            }
+            maxReintentos = nueva.getReintentos();
+            esperaBaseMs = nueva.getEsperaBaseMs();
+            esperaMaximaMs = nueva.getEsperaMaximaMs();
+            umbralFallos = nueva.getUmbralFallos();
+            intervaloSondeoMs = nueva.getIntervaloSondeoMs();
+            configuracion = nueva;
+        }
+    }
+
+    /**
+     * Devuelve el estado actual del circuito.
+     *
+     * @return el estado del circuito.
+     */
+    public EstadoCircuito getEstado() {
+        return estado;
+    }
+
+    /**
+     * Registra un oyente que se notificará en cada cambio de estado del circuito.
+     * <p>
+     * Los oyentes se invocan desde el hilo que provoca el cambio, que puede no ser el de JavaFX.
+     * </p>
+     *
+     * @param oyente el oyente a registrar.
+     */
+    public void addListener(Consumer<EstadoCircuito> oyente) {
+        oyentes.add(oyente);
+    }
+
+    /**
+     * Elimina un oyente previamente registrado.
+     *
+     * @param oyente el oyente a eliminar.
+     */
+    public void removeListener(Consumer<EstadoCircuito> oyente) {
+        oyentes.remove(oyente);
+    }
+
+    /**
+     * Obtiene una conexión aplicando el cortocircuito y los reintentos con espera.
+     *
+     * @param apertura la operación que abre la conexión física.
+     * @return la conexión abierta.
+     * @throws SQLException si el circuito está abierto o si fallan todos los intentos.
+     */
+    public Connection obtenerConexion(AperturaConexion apertura) throws SQLException {
+        synchronized (this) {
+            ultimaApertura = apertura;
+        }
+        if (estado != EstadoCircuito.CERRADO) {
+            throw new SQLNonTransientConnectionException("La base de datos no está disponible (circuito abierto)", "08001");
+        }
+
+        SQLException ultimoError = null;
+        for (int intento = 0; intento <= maxReintentos; intento++) {
+            if (intento > 0) {
+                esperar(intento);
+            }
+            try {
+                Connection conexion = apertura.abrir();
+                registrarExito();
+                return conexion;
+            } catch (SQLException e) {
+                ultimoError = e;
+                if (!esErrorDeConexion(e)) {
+                    break; // Errores como credenciales incorrectas no mejoran reintentando
+                }
+            }
+        }
+        registrarError(ultimoError);
+        throw ultimoError;
+    }
+
+    /**
+     * Registra un error de la base de datos. Solo los errores de conexión cuentan para abrir
+     * el circuito; los errores de la propia sentencia (claves duplicadas, sintaxis...) se ignoran.
+     *
+     * @param e el error producido.
+     */
+    public void registrarError(SQLException e) {
+        if (e == null || !esErrorDeConexion(e)) {
+            return;
+        }
+        boolean abrir;
+        synchronized (this) {
+            if (e == ultimoErrorRegistrado) {
+                return; // Ya contado al obtener la conexión
+            }
+            ultimoErrorRegistrado = e;
+            fallosConsecutivos++;
+            abrir = estado == EstadoCircuito.CERRADO && fallosConsecutivos >= umbralFallos;
+        }
+        if (abrir) {
+            cambiarEstado(EstadoCircuito.ABIERTO);
+            programarSondeo();
+        }
+    }
+
+    /**
+     * Detiene el sondeo de esta capa de resiliencia. Se usa al descartarla, por ejemplo al cerrar
+     * el pool de un inquilino inactivo o al recrear los pools tras un cambio de configuración, para
+     * que su hilo no siga sondeando un servidor que ya no se usa.
+     */
+    public void cerrar() {
+        sondeo.shutdownNow();
+    }
+
+    /**
+     * Registra una operación correcta, reiniciando el contador de fallos: solo los errores de
+     * conexión seguidos, sin ninguna operación correcta entre ellos, llegan a abrir el circuito.
+     * <p>
+     * Se llama al abrir una conexión física y, desde el DAO, tras cada sentencia que termina bien
+     * con una conexión del pool. Si no hay fallos que olvidar ni circuito que cerrar no toma
+     * ningún cerrojo, así que se puede llamar en cada sentencia.
+     * </p>
+     */
+    public void registrarExito() {
+        if (fallosConsecutivos == 0 && estado == EstadoCircuito.CERRADO) {
+            return;
+        }
+        synchronized (this) {
+            fallosConsecutivos = 0;
+        }
+        if (estado != EstadoCircuito.CERRADO) {
+            cambiarEstado(EstadoCircuito.CERRADO);
+        }
+    }
+
+    /**
+     * Comprueba si la base de datos ha vuelto a estar disponible. Si no lo está, programa el
+     * siguiente sondeo.
+     */
+    private void sondear() {
+        AperturaConexion apertura;
+        synchronized (this) {
+            apertura = ultimaApertura;
+        }
+        cambiarEstado(EstadoCircuito.SEMIABIERTO);
+        try (Connection conexion = apertura.abrir()) {
+            if (conexion.isValid((int) Math.max(1, intervaloSondeoMs / 1000))) {
+                registrarExito();
+                return;
+            }
+        } catch (SQLException e) {
+            // La base de datos sigue sin responder
+        }
+        cambiarEstado(EstadoCircuito.ABIERTO);
+        programarSondeo();
+    }
+
+    /**
+     * Programa el siguiente sondeo, salvo que la capa de resiliencia se haya cerrado.
+     */
+    private void programarSondeo() {
+        try {
+            sondeo.schedule(this::sondear, intervaloSondeoMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Cerrada con cerrar(): ya no hay nada que sondear
+        }
+    }
+
+    /**
+     * Cambia el estado del circuito y notifica a los oyentes si ha cambiado.
+     *
+     * @param nuevoEstado el nuevo estado.
+     */
+    private void cambiarEstado(EstadoCircuito nuevoEstado) {
+        EstadoCircuito anterior;
+        synchronized (this) {
+            anterior = estado;
+            estado = nuevoEstado;
+        }
+        if (anterior != nuevoEstado) {
+            System.out.println("Estado de la conexión: " + anterior + " -> " + nuevoEstado);
+            for (Consumer<EstadoCircuito> oyente : oyentes) {
+                oyente.accept(nuevoEstado);
+            }
+        }
+    }
+
+    /**
+     * Espera antes de un reintento usando espera exponencial con variación aleatoria completa.
+     *
+     * @param intento el número de reintento, empezando en 1.
+     * @throws SQLException si el hilo se interrumpe durante la espera.
+     */
+    private void esperar(int intento) throws SQLException {
+        long tope = Math.min(esperaMaximaMs, esperaBaseMs << Math.min(intento - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(tope + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido mientras se esperaba para reintentar la conexión", e);
+        }
+    }
+
+    /**
+     * Indica si un error se debe a la conexión con la base de datos (SQLState de la clase 08).
+     * <p>
+     * Los tiempos máximos de consulta ({@code SQLTimeoutException}) y los interbloqueos
+     * ({@code SQLTransactionRollbackException}) son transitorios pero no indican que el servidor
+     * esté caído, así que no cuentan para abrir el circuito.
+     * </p>
+     *
+     * @param e el error a comprobar.
+     * @return {@code true} si es un error de conexión, {@code false} en caso contrario.
+     */
+    private static boolean esErrorDeConexion(SQLException e) {
+        if (e instanceof SQLTransientConnectionException || e instanceof SQLNonTransientConnectionException) {
+            return true;
+        }
+        String sqlState = e.getSQLState();
+        return sqlState != null && sqlState.startsWith("08");
+    }
+}
@@ -0,0 +1,135 @@
+package es.jeremy.ejeh;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Funciones de comparación aproximada de nombres y apellidos, para detectar personas duplicadas.
+ * <p>
+ * Los nombres se comparan por su clave de comparación, que ignora mayúsculas, acentos,
+ * signos y espacios repetidos. Sobre ella se calculan un código fonético adaptado al español,
+ * que agrupa las letras que suenan igual (b/v, c/k/q, s/z/c ante e o i, g/j ante e o i, ll/y), y
+ * la similitud de Jaro-Winkler, que da más peso a las coincidencias al principio de la cadena.
+ * </p>
+ */
+public final class SimilitudNombres {
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern NO_LETRAS = Pattern.compile("[^a-zñ ]+");
+    private static final int LONGITUD_CODIGO = 6;
+
+    private SimilitudNombres() {
+    }
+
+    /**
+     * Devuelve la clave de comparación de un texto: normalizado, en minúsculas, sin acentos (salvo
+     * la ñ) y solo con letras y espacios sencillos.
+     *
+     * @param texto el texto, o {@code null}.
+     * @return la clave de comparación; una cadena vacía si no queda ninguna letra.
+     */
+    public static String clave(String texto) {
+        String normalizado = ValidadorPersona.normalizar(texto).toLowerCase(Locale.ROOT).replace('ñ', '\u0001');
+        String sinAcentos = MARCAS.matcher(Normalizer.normalize(normalizado, Normalizer.Form.NFD)).replaceAll("");
+        return ValidadorPersona.normalizar(NO_LETRAS.matcher(sinAcentos.replace('\u0001', 'ñ')).replaceAll(" "));
+    }
+
+    /**
+     * Calcula el código fonético de la primera palabra de una clave de comparación.
+     *
+     * @param clave la clave de comparación, obtenida con {@link #clave(String)}.
+     * @return el código fonético, de hasta {@value #LONGITUD_CODIGO} caracteres, o una cadena vacía.
+     */
+    public static String codigoFonetico(String clave) {
+        int espacio = clave.indexOf(' ');
+        String palabra = espacio < 0 ? clave : clave.substring(0, espacio);
+        StringBuilder codigo = new StringBuilder(LONGITUD_CODIGO);
+        char anterior = 0;
+        for (int i = 0; i < palabra.length() && codigo.length() < LONGITUD_CODIGO; i++) {
+            char c = palabra.charAt(i);
+            char siguiente = i + 1 < palabra.length() ? palabra.charAt(i + 1) : 0;
+            boolean anteEoI = siguiente == 'e' || siguiente == 'i';
+            char sonido = switch (c) {
+                case 'b', 'v', 'w' -> 'B';
+                case 'p' -> 'P';
+                case 'f' -> 'F';
+                case 'c' -> anteEoI ? 'S' : 'K';
+                case 'k', 'q' -> 'K';
+                case 's', 'z', 'x' -> 'S';
+                case 'g' -> anteEoI ? 'J' : 'G';
+                case 'j' -> 'J';
+                case 'd', 't' -> 'T';
+                case 'l' -> siguiente == 'l' ? 'Y' : 'L';
+                case 'y' -> 'Y';
+                case 'm', 'n', 'ñ' -> 'N';
+                case 'r' -> 'R';
+                case 'a', 'e', 'i', 'o', 'u' -> i == 0 ? 'A' : 0; // Las vocales solo cuentan al principio
+                default -> 0; // La h es muda
+            };
+            if (c == 'l' && siguiente == 'l') {
+                i++;
+            }
+            if (sonido != 0 && sonido != anterior) {
+                codigo.append(sonido);
+            }
+            anterior = sonido;
+        }
+        return codigo.toString();
+    }
+
+    /**
+     * Calcula la similitud de Jaro-Winkler entre dos cadenas.
+     *
+     * @param a la primera cadena.
+     * @param b la segunda cadena.
+     * @return la similitud, entre 0 (nada en común) y 1 (iguales).
+     */
+    public static double jaroWinkler(String a, String b) {
+        if (a.equals(b)) {
+            return 1.0;
+        }
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0.0;
+        }
+        int ventana = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+        boolean[] usadasA = new boolean[a.length()];
+        boolean[] usadasB = new boolean[b.length()];
+        int coincidencias = 0;
+        for (int i = 0; i < a.length(); i++) {
+            int desde = Math.max(0, i - ventana);
+            int hasta = Math.min(b.length() - 1, i + ventana);
+            for (int j = desde; j <= hasta; j++) {
+                if (!usadasB[j] && a.charAt(i) == b.charAt(j)) {
+                    usadasA[i] = true;
+                    usadasB[j] = true;
+                    coincidencias++;
+                    break;
+                }
+            }
+        }
+        if (coincidencias == 0) {
+            return 0.0;
+        }
+
+        int transposiciones = 0;
+        for (int i = 0, j = 0; i < a.length(); i++) {
+            if (usadasA[i]) {
+                while (!usadasB[j]) {
+                    j++;
+                }
+                if (a.charAt(i) != b.charAt(j)) {
+                    transposiciones++;
+                }
+                j++;
+            }
+        }
+        double m = coincidencias;
+        double jaro = (m / a.length() + m / b.length() + (m - transposiciones / 2.0) / m) / 3.0;
+
+        int prefijo = 0;
+        while (prefijo < Math.min(4, Math.min(a.length(), b.length())) && a.charAt(prefijo) == b.charAt(prefijo)) {
+            prefijo++;
+        }
+        return jaro + prefijo * 0.1 * (1.0 - jaro);
+    }
+}
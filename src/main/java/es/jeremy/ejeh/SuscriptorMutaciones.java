@@ -0,0 +1,195 @@
+package es.jeremy.ejeh;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Suscriptor que aplica en la base de datos un flujo de cambios de personas, por lotes.
+ * <p>
+ * Pide los cambios de {@code tamanoLote} en {@code tamanoLote} y no pide el lote siguiente hasta
+ * haber aplicado el anterior, así que el publicador nunca le adelanta más de un lote y la memoria
+ * usada no depende de la longitud del flujo. Dentro de un lote, las altas seguidas se guardan con
+ * {@link DaoPersona#nuevasPersonas(Inquilino, List)}, las bajas seguidas con
+ * {@link DaoPersona#eliminarPersonas(Inquilino, List)} y las modificaciones de una en una,
+ * respetando el orden del flujo.
+ * </p>
+ * <p>
+ * Al terminar el flujo, o si falla, se aplican los cambios ya recibidos y se completa
+ * {@link #getResultado()} con el número de cambios aplicados, o con el error del publicador. Si
+ * falla un lote o una modificación en la base de datos se cancela la suscripción y el resultado
+ * termina con error; una modificación de una persona que ya no existe solo se omite.
+ * </p>
+ */
+public class SuscriptorMutaciones implements Flow.Subscriber<MutacionPersona> {
+
+    /**
+     * Tamaño de lote usado si {@code consulta.fetchSize} es cero.
+     */
+    private static final int TAMANO_LOTE_PREDETERMINADO = 500;
+
+    private final Inquilino inquilino;
+    private final int tamanoLote;
+    private final List<MutacionPersona> pendientes;
+    private final CompletableFuture<Integer> resultado = new CompletableFuture<>();
+    private Flow.Subscription suscripcion;
+    private int aplicadas;
+    private boolean fallido;
+
+    /**
+     * Crea un suscriptor con lotes del tamaño de lectura configurado, {@code consulta.fetchSize}.
+     *
+     * @param inquilino el inquilino cuya base de datos se usa.
+     */
+    public SuscriptorMutaciones(Inquilino inquilino) {
+        this(inquilino, ConfiguracionBBDD.getActual().getFetchSize() > 0
+                ? ConfiguracionBBDD.getActual().getFetchSize() : TAMANO_LOTE_PREDETERMINADO);
+    }
+
+    /**
+     * Crea un suscriptor con lotes del tamaño indicado.
+     *
+     * @param inquilino  el inquilino cuya base de datos se usa.
+     * @param tamanoLote el número de cambios que se piden y aplican de una vez.
+     */
+    public SuscriptorMutaciones(Inquilino inquilino, int tamanoLote) {
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor que cero: " + tamanoLote);
+        }
+        this.inquilino = inquilino;
+        this.tamanoLote = tamanoLote;
+        this.pendientes = new ArrayList<>(tamanoLote);
+    }
+
+    /**
+     * Devuelve el resultado del flujo, que se completa cuando el publicador termina.
+     *
+     * @return el número de cambios aplicados, o el error del publicador.
+     */
+    public CompletableFuture<Integer> getResultado() {
+        return resultado;
+    }
+
+    /**
+     * Acepta la suscripción y pide el primer lote. Una segunda suscripción se cancela.
+     *
+     * @param suscripcion la suscripción.
+     */
+    @Override
+    public void onSubscribe(Flow.Subscription suscripcion) {
+        if (this.suscripcion != null) {
+            suscripcion.cancel();
+            return;
+        }
+        this.suscripcion = suscripcion;
+        suscripcion.request(tamanoLote);
+    }
+
+    /**
+     * Guarda un cambio y, al completar un lote, lo aplica y pide el siguiente.
+     *
+     * @param mutacion el cambio.
+     */
+    @Override
+    public void onNext(MutacionPersona mutacion) {
+        if (fallido) {
+            return; // Cambios ya pedidos que llegan después de cancelar
+        }
+        pendientes.add(mutacion);
+        if (pendientes.size() >= tamanoLote && aplicar()) {
+            suscripcion.request(tamanoLote);
+        }
+    }
+
+    /**
+     * Aplica los cambios recibidos y completa el resultado con el error del publicador.
+     *
+     * @param error el error.
+     */
+    @Override
+    public void onError(Throwable error) {
+        if (!fallido && aplicar()) {
+            resultado.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Aplica los cambios recibidos y completa el resultado con el total de cambios aplicados.
+     */
+    @Override
+    public void onComplete() {
+        if (!fallido && aplicar()) {
+            resultado.complete(aplicadas);
+        }
+    }
+
+    /**
+     * Aplica los cambios pendientes, agrupando las altas y las bajas seguidas.
+     * <p>
+     * Si falla un lote de altas o de bajas, o una modificación, se cancela la suscripción y se
+     * completa el resultado con el error, en lugar de seguir pidiendo cambios que se perderían.
+     * Una modificación de una persona que ya no existe no es un error: se omite y no se cuenta.
+     * </p>
+     *
+     * @return {@code true} si se aplicaron todos los lotes, {@code false} si alguno falló.
+     */
+    private boolean aplicar() {
+        int inicio = 0;
+        while (inicio < pendientes.size()) {
+            EventoAuditoria.Operacion operacion = pendientes.get(inicio).operacion();
+            int fin = inicio + 1;
+            while (fin < pendientes.size() && pendientes.get(fin).operacion() == operacion) {
+                fin++;
+            }
+            List<MutacionPersona> tramo = pendientes.subList(inicio, fin);
+            switch (operacion) {
+                case ALTA -> {
+                    if (!sumar(operacion, DaoPersona.nuevasPersonas(inquilino,
+                            tramo.stream().map(MutacionPersona::despues).toList()))) {
+                        return false;
+                    }
+                }
+                case BAJA -> {
+                    if (!sumar(operacion, DaoPersona.eliminarPersonas(inquilino,
+                            tramo.stream().map(MutacionPersona::antes).toList()))) {
+                        return false;
+                    }
+                }
+                case MODIFICACION -> {
+                    for (MutacionPersona mutacion : tramo) {
+                        // Sin filas coincidentes se omite; solo un error de la base de datos detiene el flujo
+                        if (!sumar(operacion, DaoPersona.modificarPersona(inquilino, mutacion.antes(), mutacion.despues()))) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            inicio = fin;
+        }
+        pendientes.clear();
+        return true;
+    }
+
+    /**
+     * Suma las filas de un lote o de una modificación aplicados o, si fallaron, cancela la
+     * suscripción y completa el resultado con el error.
+     *
+     * @param operacion la operación del lote.
+     * @param filas     las filas afectadas, o un número negativo si el lote falló.
+     * @return {@code true} si el lote se aplicó.
+     */
+    private boolean sumar(EventoAuditoria.Operacion operacion, int filas) {
+        if (filas >= 0) {
+            aplicadas += filas;
+            return true;
+        }
+        fallido = true;
+        pendientes.clear();
+        suscripcion.cancel();
+        resultado.completeExceptionally(new SQLException("Falló la operación " + operacion
+                + " tras aplicar " + aplicadas + " cambios"));
+        return false;
+    }
+}
@@ -0,0 +1,43 @@
+package es.jeremy.ejeh;
+
+import javafx.scene.control.TextField;
+import javafx.scene.control.Tooltip;
+
+/**
+ * Validación campo a campo de los formularios de persona con {@link ValidadorPersona}.
+ * <p>
+ * Cada campo vigilado se comprueba al salir de él: si no es válido se marca con un borde rojo y
+ * el motivo aparece al pasar el ratón por encima, sin esperar a pulsar el botón de guardar.
+ * </p>
+ */
+public final class ValidacionFormulario {
+    private static final String ESTILO_ERROR = "-fx-border-color: red;";
+
+    private ValidacionFormulario() {
+    }
+
+    /**
+     * Empieza a validar un campo de texto cada vez que pierde el foco.
+     *
+     * @param campoTexto el campo de texto.
+     * @param campo      el dato de la persona que contiene.
+     */
+    public static void vigilar(TextField campoTexto, ValidadorPersona.Campo campo) {
+        campoTexto.focusedProperty().addListener((obs, teniaFoco, tieneFoco) -> {
+            if (!tieneFoco) {
+                marcar(campoTexto, ValidadorPersona.validarCampo(campo, campoTexto.getText()));
+            }
+        });
+    }
+
+    /**
+     * Marca un campo como erróneo o lo desmarca.
+     *
+     * @param campoTexto el campo de texto.
+     * @param error      el mensaje de error, o {@code null} para quitar la marca.
+     */
+    public static void marcar(TextField campoTexto, String error) {
+        campoTexto.setStyle(error == null ? "" : ESTILO_ERROR);
+        campoTexto.setTooltip(error == null ? null : new Tooltip(error));
+    }
+}
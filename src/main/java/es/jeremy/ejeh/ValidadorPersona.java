@@ -0,0 +1,327 @@
+package es.jeremy.ejeh;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Validación y normalización de los datos de una persona, común a los formularios y a las cargas masivas.
+ * <p>
+ * Los textos se normalizan antes de validarse: se quitan los espacios del principio y del final,
+ * se reducen a uno los espacios seguidos y se pasan a la forma Unicode NFC, para que una misma
+ * letra acentuada escrita de dos formas distintas se guarde siempre igual. Después se comprueba
+ * que no estén vacíos, que no superen la longitud de su columna y que solo tengan letras,
+ * espacios, apóstrofos, guiones y puntos. La edad debe ser un número entre 0 y {@value #EDAD_MAXIMA}.
+ * </p>
+ * <p>
+ * Los patrones se compilan una sola vez. {@link #validarCampo(Campo, String)} sirve para comprobar
+ * un campo mientras se edita; {@link #validar(String, String, String)}, para un formulario
+ * completo; y {@link #validarLote(List)}, para miles de filas de una vez, reutilizando los mismos
+ * comparadores y sin normalizar los textos que ya están en ASCII.
+ * </p>
+ */
+public final class ValidadorPersona {
+
+    /**
+     * Longitud máxima del nombre, la de la columna {@code nombre}.
+     */
+    public static final int LONGITUD_MAXIMA_NOMBRE = 50;
+
+    /**
+     * Longitud máxima de los apellidos, la de la columna {@code apellidos}.
+     */
+    public static final int LONGITUD_MAXIMA_APELLIDOS = 100;
+
+    /**
+     * Edad máxima admitida.
+     */
+    public static final int EDAD_MAXIMA = 150;
+
+    private static final Pattern ESPACIOS = Pattern.compile("[\\s\\p{Z}]+", Pattern.UNICODE_CHARACTER_CLASS);
+    private static final Pattern TEXTO_VALIDO = Pattern.compile("\\p{L}\\p{M}*(?:[\\p{L}\\p{M} '’.-])*");
+    private static final Pattern EDAD = Pattern.compile("\\d{1,3}");
+
+    /**
+     * Campos validados de una persona.
+     */
+    public enum Campo {
+        /**
+         * El nombre de la persona.
+         */
+        NOMBRE("nombre"),
+        /**
+         * Los apellidos de la persona.
+         */
+        APELLIDOS("apellidos"),
+        /**
+         * La edad de la persona.
+         */
+        EDAD("edad");
+
+        private final String etiqueta;
+
+        Campo(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+    }
+
+    /**
+     * Resultado de validar los datos de una persona.
+     *
+     * @param persona la persona con los datos normalizados, o {@code null} si hay errores.
+     * @param errores el mensaje de error de cada campo no válido, vacío si todo es correcto.
+     */
+    public record Resultado(Persona persona, Map<Campo, String> errores) {
+
+        /**
+         * Indica si los datos son válidos.
+         *
+         * @return {@code true} si no hay errores.
+         */
+        public boolean esValido() {
+            return errores.isEmpty();
+        }
+
+        /**
+         * Une los mensajes de error en un texto, uno por línea, para mostrarlos al usuario.
+         *
+         * @return los mensajes de error, o una cadena vacía si no hay.
+         */
+        public String mensaje() {
+            return String.join("\n", errores.values());
+        }
+    }
+
+    /**
+     * Resultado de validar un lote de personas.
+     *
+     * @param validas    las personas válidas, normalizadas, en el orden original.
+     * @param rechazadas el motivo del rechazo de cada persona no válida, por su posición en el lote.
+     */
+    public record Lote(List<Persona> validas, Map<Integer, String> rechazadas) {
+    }
+
+    private ValidadorPersona() {
+    }
+
+    /**
+     * Normaliza un texto: quita los espacios de los extremos, reduce a uno los espacios seguidos
+     * y lo pasa a la forma Unicode NFC.
+     *
+     * @param texto el texto, o {@code null}.
+     * @return el texto normalizado; una cadena vacía si era {@code null}.
+     */
+    public static String normalizar(String texto) {
+        return normalizar(texto, ESPACIOS.matcher(""));
+    }
+
+    /**
+     * Valida un único campo, por ejemplo al salir de él en un formulario.
+     *
+     * @param campo el campo.
+     * @param valor el texto introducido.
+     * @return el mensaje de error, o {@code null} si el valor es válido.
+     */
+    public static String validarCampo(Campo campo, String valor) {
+        if (campo == Campo.EDAD) {
+            String edad = valor == null ? "" : valor.strip();
+            return validarEdad(edad) < 0 ? mensajeEdad(edad) : null;
+        }
+        return validarTexto(campo, normalizar(valor), TEXTO_VALIDO.matcher(""));
+    }
+
+    /**
+     * Valida y normaliza los datos de un formulario.
+     *
+     * @param nombre    el nombre introducido.
+     * @param apellidos los apellidos introducidos.
+     * @param edad      la edad introducida.
+     * @return el resultado, con la persona normalizada si no hay errores.
+     */
+    public static Resultado validar(String nombre, String apellidos, String edad) {
+        Map<Campo, String> errores = new EnumMap<>(Campo.class);
+        Matcher texto = TEXTO_VALIDO.matcher("");
+        String nombreNormalizado = normalizar(nombre);
+        String apellidosNormalizados = normalizar(apellidos);
+        anotar(errores, Campo.NOMBRE, validarTexto(Campo.NOMBRE, nombreNormalizado, texto));
+        anotar(errores, Campo.APELLIDOS, validarTexto(Campo.APELLIDOS, apellidosNormalizados, texto));
+        String edadLimpia = edad == null ? "" : edad.strip();
+        int valorEdad = validarEdad(edadLimpia);
+        if (valorEdad < 0) {
+            errores.put(Campo.EDAD, mensajeEdad(edadLimpia));
+        }
+        if (!errores.isEmpty()) {
+            return new Resultado(null, Collections.unmodifiableMap(errores));
+        }
+        return new Resultado(new Persona(nombreNormalizado, apellidosNormalizados, valorEdad), Map.of());
+    }
+
+    /**
+     * Valida y normaliza una persona ya construida, por ejemplo antes de guardarla.
+     *
+     * @param persona la persona.
+     * @return el resultado, con una copia normalizada de la persona si no hay errores.
+     */
+    public static Resultado validar(Persona persona) {
+        return validar(persona.getNombre(), persona.getApellidos(), String.valueOf(persona.getEdad()));
+    }
+
+    /**
+     * Valida y normaliza un lote de personas en una sola pasada, reutilizando los comparadores.
+     * Las personas que ya están normalizadas se devuelven tal cual, sin copiarlas.
+     *
+     * @param personas las personas a validar.
+     * @return las personas válidas y el motivo de rechazo de las demás.
+     */
+    public static Lote validarLote(List<Persona> personas) {
+        List<Persona> validas = new ArrayList<>(personas.size());
+        Map<Integer, String> rechazadas = new LinkedHashMap<>();
+        Matcher espacios = ESPACIOS.matcher("");
+        Matcher texto = TEXTO_VALIDO.matcher("");
+        for (int i = 0; i < personas.size(); i++) {
+            Persona persona = personas.get(i);
+            if (persona == null) {
+                rechazadas.put(i, "Fila vacía");
+                continue;
+            }
+            String nombre = normalizar(persona.getNombre(), espacios);
+            String apellidos = normalizar(persona.getApellidos(), espacios);
+            String error = validarTexto(Campo.NOMBRE, nombre, texto);
+            if (error == null) {
+                error = validarTexto(Campo.APELLIDOS, apellidos, texto);
+            }
+            if (error == null && persona.getEdad() > EDAD_MAXIMA) {
+                error = mensajeEdad(String.valueOf(persona.getEdad()));
+            }
+            if (error != null) {
+                rechazadas.put(i, error);
+            } else if (nombre.equals(persona.getNombre()) && apellidos.equals(persona.getApellidos())) {
+                validas.add(persona);
+            } else {
+                validas.add(new Persona(nombre, apellidos, persona.getEdad()));
+            }
+        }
+        return new Lote(validas, rechazadas);
+    }
+
+    /**
+     * Normaliza un texto reutilizando un comparador de espacios.
+     *
+     * @param texto    el texto, o {@code null}.
+     * @param espacios el comparador del patrón de espacios.
+     * @return el texto normalizado.
+     */
+    private static String normalizar(String texto, Matcher espacios) {
+        if (texto == null) {
+            return "";
+        }
+        String limpio = texto;
+        if (tieneEspaciosIrregulares(limpio)) {
+            limpio = espacios.reset(limpio).replaceAll(" ");
+        }
+        limpio = limpio.strip();
+        if (esAscii(limpio)) {
+            return limpio; // El ASCII ya está en NFC
+        }
+        return Normalizer.isNormalized(limpio, Normalizer.Form.NFC) ? limpio : Normalizer.normalize(limpio, Normalizer.Form.NFC);
+    }
+
+    /**
+     * Valida un texto ya normalizado.
+     *
+     * @param campo el campo, {@code NOMBRE} o {@code APELLIDOS}.
+     * @param valor el texto normalizado.
+     * @param texto el comparador del patrón de texto válido.
+     * @return el mensaje de error, o {@code null} si es válido.
+     */
+    private static String validarTexto(Campo campo, String valor, Matcher texto) {
+        int maximo = campo == Campo.NOMBRE ? LONGITUD_MAXIMA_NOMBRE : LONGITUD_MAXIMA_APELLIDOS;
+        if (valor.isEmpty()) {
+            return "El campo " + campo.etiqueta + " es obligatorio.";
+        }
+        if (valor.codePointCount(0, valor.length()) > maximo) {
+            return "El campo " + campo.etiqueta + " no puede tener más de " + maximo + " caracteres.";
+        }
+        if (!texto.reset(valor).matches()) {
+            return "El campo " + campo.etiqueta + " solo puede contener letras, espacios, apóstrofos, guiones y puntos.";
+        }
+        return null;
+    }
+
+    /**
+     * Convierte la edad introducida en un número, comprobando que está en el rango admitido.
+     *
+     * @param edad la edad sin espacios en los extremos.
+     * @return la edad, o {@code -1} si no es válida.
+     */
+    private static int validarEdad(String edad) {
+        if (!EDAD.matcher(edad).matches()) {
+            return -1;
+        }
+        int valor = Integer.parseInt(edad);
+        return valor <= EDAD_MAXIMA ? valor : -1;
+    }
+
+    /**
+     * Devuelve el mensaje de error de una edad no válida.
+     *
+     * @param edad la edad introducida.
+     * @return el mensaje de error.
+     */
+    private static String mensajeEdad(String edad) {
+        return edad.isEmpty() ? "El campo edad es obligatorio." : "La edad debe ser un número entre 0 y " + EDAD_MAXIMA + ".";
+    }
+
+    /**
+     * Anota el error de un campo, si lo hay.
+     *
+     * @param errores los errores del formulario.
+     * @param campo   el campo.
+     * @param error   el mensaje de error, o {@code null}.
+     */
+    private static void anotar(Map<Campo, String> errores, Campo campo, String error) {
+        if (error != null) {
+            errores.put(campo, error);
+        }
+    }
+
+    /**
+     * Indica si un texto tiene espacios seguidos o espacios distintos del normal, que hay que reducir.
+     *
+     * @param texto el texto.
+     * @return {@code true} si hay que reducir sus espacios.
+     */
+    private static boolean tieneEspaciosIrregulares(String texto) {
+        boolean anteriorEspacio = false;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            boolean espacio = Character.isWhitespace(c) || Character.isSpaceChar(c);
+            if (espacio && (c != ' ' || anteriorEspacio)) {
+                return true;
+            }
+            anteriorEspacio = espacio;
+        }
+        return false;
+    }
+
+    /**
+     * Indica si un texto solo tiene caracteres ASCII.
+     *
+     * @param texto el texto.
+     * @return {@code true} si todos sus caracteres son ASCII.
+     */
+    private static boolean esAscii(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -2,6 +2,7 @@ module es.jeremy.ejeh {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.sql;
+    requires java.prefs;
 
 
     opens es.jeremy.ejeh to javafx.fxml;
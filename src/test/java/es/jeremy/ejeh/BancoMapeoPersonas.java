@@ -0,0 +1,150 @@
+package es.jeremy.ejeh;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Banco de pruebas que compara las formas de mapear el listado de personas.
+ * <p>
+ * Ejecuta repetidamente la consulta del listado y mide, para cada forma de mapeo, el tiempo
+ * medio por carga y la memoria reservada por fila:
+ * </p>
+ * <ul>
+ *     <li><b>por nombre</b>: la forma anterior, buscando cada columna por su nombre en cada fila;</li>
+ *     <li><b>compilado</b>: {@link MapeadorPersona} con las columnas resueltas una vez y deduplicación;</li>
+ *     <li><b>columnar</b>: {@link MapeadorPersona} volcando en un {@link AlmacenColumnarPersonas} reutilizado.</li>
+ * </ul>
+ * <p>
+ * Uso: {@code java es.jeremy.ejeh.BancoMapeoPersonas [repeticiones]}, con las clases de prueba en
+ * el classpath. Conviene tener cargada en la base de datos una tabla grande para que las
+ * diferencias sean apreciables.
+ * </p>
+ * <p>
+ * Está entre las fuentes de prueba porque la medida de memoria usa {@code com.sun.management},
+ * del módulo {@code jdk.management}, que la aplicación no necesita. Al compilar las pruebas el
+ * {@code pom.xml} añade ese módulo y su lectura desde {@code es.jeremy.ejeh}; si se ejecuta con
+ * el module path hay que pasar también
+ * {@code --add-modules jdk.management --add-reads es.jeremy.ejeh=jdk.management}.
+ * </p>
+ */
+public class BancoMapeoPersonas {
+
+    /**
+     * Forma de mapear las filas de un resultado.
+     */
+    @FunctionalInterface
+    private interface Mapeo {
+        /**
+         * Mapea todas las filas del resultado.
+         *
+         * @param rs el resultado de la consulta del listado.
+         * @return el número de filas mapeadas.
+         * @throws SQLException si falla la lectura.
+         */
+        int mapear(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Punto de entrada del banco de pruebas.
+     *
+     * @param args opcionalmente, el número de repeticiones medidas de cada forma de mapeo.
+     * @throws SQLException si falla la conexión o la consulta.
+     */
+    public static void main(String[] args) throws SQLException {
+        int repeticiones = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        AlmacenColumnarPersonas almacen = new AlmacenColumnarPersonas(1024);
+
+        Mapeo porNombre = rs -> {
+            List<Persona> personas = new ArrayList<>();
+            while (rs.next()) {
+                personas.add(new Persona(rs.getString("nombre"), rs.getString("apellidos"), rs.getInt("edad")));
+            }
+            return personas.size();
+        };
+        Mapeo compilado = rs -> {
+            MapeadorPersona mapeador = MapeadorPersona.para(rs, new CacheCadenas(DaoPersona.CAPACIDAD_CACHE_CADENAS));
+            List<Persona> personas = new ArrayList<>();
+            while (rs.next()) {
+                personas.add(mapeador.mapear(rs));
+            }
+            return personas.size();
+        };
+        Mapeo columnar = rs -> {
+            MapeadorPersona mapeador = MapeadorPersona.para(rs, new CacheCadenas(DaoPersona.CAPACIDAD_CACHE_CADENAS));
+            almacen.limpiar();
+            while (rs.next()) {
+                mapeador.mapearEn(rs, almacen);
+            }
+            return almacen.getTamano();
+        };
+
+        try (ConexionBBDD conexion = ConexionBBDD.lectura();
+             Connection conn = conexion.getConexion();
+             PreparedStatement pstmt = conn.prepareStatement(DaoPersona.CONSULTA_LISTADO)) {
+            pstmt.setFetchSize(ConfiguracionBBDD.getActual().getFetchSize());
+
+            // Calentamiento para que el JIT compile las tres variantes
+            for (int i = 0; i < 5; i++) {
+                medir(pstmt, porNombre, 1);
+                medir(pstmt, compilado, 1);
+                medir(pstmt, columnar, 1);
+            }
+            System.out.printf("%-12s %12s %14s%n", "mapeo", "ms/carga", "bytes/fila");
+            imprimir("por nombre", medir(pstmt, porNombre, repeticiones));
+            imprimir("compilado", medir(pstmt, compilado, repeticiones));
+            imprimir("columnar", medir(pstmt, columnar, repeticiones));
+        } finally {
+            ConexionBBDD.cerrarPool();
+        }
+    }
+
+    /**
+     * Ejecuta la consulta y el mapeo varias veces.
+     *
+     * @param pstmt        la consulta del listado.
+     * @param mapeo        la forma de mapeo a medir.
+     * @param repeticiones el número de ejecuciones.
+     * @return el tiempo medio por carga en nanosegundos, los bytes reservados por fila y las filas por carga.
+     * @throws SQLException si falla la consulta.
+     */
+    private static long[] medir(PreparedStatement pstmt, Mapeo mapeo, int repeticiones) throws SQLException {
+        long bytesInicio = bytesReservados();
+        long inicio = System.nanoTime();
+        long filas = 0;
+        for (int i = 0; i < repeticiones; i++) {
+            try (ResultSet rs = pstmt.executeQuery()) {
+                filas += mapeo.mapear(rs);
+            }
+        }
+        long nanos = System.nanoTime() - inicio;
+        long bytes = bytesReservados() - bytesInicio;
+        return new long[]{nanos / repeticiones, filas == 0 ? 0 : bytes / filas, filas / repeticiones};
+    }
+
+    /**
+     * Muestra el resultado de una medición.
+     *
+     * @param nombre    el nombre de la forma de mapeo.
+     * @param resultado el resultado de {@link #medir(PreparedStatement, Mapeo, int)}.
+     */
+    private static void imprimir(String nombre, long[] resultado) {
+        System.out.printf("%-12s %12.3f %14d   (%d filas)%n", nombre, resultado[0] / 1e6, resultado[1], resultado[2]);
+    }
+
+    /**
+     * Devuelve los bytes reservados hasta ahora por el hilo actual, si la JVM lo permite.
+     *
+     * @return los bytes reservados, o 0 si la JVM no ofrece esta medida.
+     */
+    private static long bytesReservados() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean hilos) {
+            return hilos.getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,145 @@
+package es.jeremy.ejeh;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de {@link BufferCircular}: capacidad, orden, cola llena y vuelta completa del índice.
+ */
+class BufferCircularTest {
+
+    @Test
+    void redondeaLaCapacidadALaSiguientePotenciaDeDos() {
+        assertEquals(2, new BufferCircular<>(1).getCapacidad());
+        assertEquals(2, new BufferCircular<>(2).getCapacidad());
+        assertEquals(4, new BufferCircular<>(3).getCapacidad());
+        assertEquals(8, new BufferCircular<>(5).getCapacidad());
+        assertEquals(8, new BufferCircular<>(8).getCapacidad());
+        assertEquals(16, new BufferCircular<>(9).getCapacidad());
+    }
+
+    @Test
+    void devuelveLosElementosEnOrdenDeLlegada() {
+        BufferCircular<Integer> buffer = new BufferCircular<>(8);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(buffer.ofrecer(i));
+        }
+        assertEquals(5, buffer.getOcupacion());
+
+        List<Integer> sacados = new ArrayList<>();
+        assertEquals(5, buffer.vaciarEn(sacados, 100));
+
+        assertEquals(List.of(0, 1, 2, 3, 4), sacados);
+        assertEquals(0, buffer.getOcupacion());
+        assertEquals(0, buffer.vaciarEn(sacados, 100));
+    }
+
+    @Test
+    void noSacaMasDelMaximoIndicado() {
+        BufferCircular<Integer> buffer = new BufferCircular<>(8);
+        for (int i = 0; i < 6; i++) {
+            buffer.ofrecer(i);
+        }
+
+        List<Integer> sacados = new ArrayList<>();
+        assertEquals(4, buffer.vaciarEn(sacados, 4));
+        assertEquals(List.of(0, 1, 2, 3), sacados);
+        assertEquals(2, buffer.getOcupacion());
+    }
+
+    @Test
+    void rechazaElementosCuandoEstaLlenaHastaQueSeVacia() {
+        BufferCircular<Integer> buffer = new BufferCircular<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.ofrecer(i));
+        }
+
+        assertFalse(buffer.ofrecer(4));
+        assertEquals(4, buffer.getOcupacion());
+
+        List<Integer> sacados = new ArrayList<>();
+        buffer.vaciarEn(sacados, 1);
+        assertTrue(buffer.ofrecer(4));
+        assertFalse(buffer.ofrecer(5));
+
+        buffer.vaciarEn(sacados, 100);
+        assertEquals(List.of(0, 1, 2, 3, 4), sacados);
+    }
+
+    @Test
+    void conservaElOrdenAlDarVariasVueltas() {
+        BufferCircular<Integer> buffer = new BufferCircular<>(4);
+        List<Integer> sacados = new ArrayList<>();
+        int siguiente = 0;
+        // Tandas de tres en una cola de cuatro: cada tanda empieza en una ranura distinta
+        for (int vuelta = 0; vuelta < 1_000; vuelta++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(buffer.ofrecer(siguiente++));
+            }
+            buffer.vaciarEn(sacados, 3);
+        }
+
+        assertEquals(siguiente, sacados.size());
+        for (int i = 0; i < sacados.size(); i++) {
+            assertEquals(i, sacados.get(i).intValue());
+        }
+    }
+
+    @Test
+    void entregaUnaVezCadaElementoDeVariosProductores() throws InterruptedException {
+        int productores = 4;
+        int porProductor = 50_000;
+        BufferCircular<long[]> buffer = new BufferCircular<>(64);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Thread> hilos = new ArrayList<>();
+        for (int p = 0; p < productores; p++) {
+            int productor = p;
+            Thread hilo = new Thread(() -> {
+                try {
+                    salida.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < porProductor; i++) {
+                    long[] elemento = {productor, i};
+                    while (!buffer.ofrecer(elemento)) {
+                        Thread.onSpinWait(); // Llena: se reintenta hasta que el consumidor saque
+                    }
+                }
+            });
+            hilo.start();
+            hilos.add(hilo);
+        }
+        salida.countDown();
+
+        // Cada productor publica en orden, así que su siguiente número esperado debe llegar siempre el primero
+        int[] siguiente = new int[productores];
+        List<long[]> sacados = new ArrayList<>();
+        int total = 0;
+        while (total < productores * porProductor) {
+            sacados.clear();
+            total += buffer.vaciarEn(sacados, 32);
+            for (long[] elemento : sacados) {
+                int productor = (int) elemento[0];
+                assertEquals(siguiente[productor], (int) elemento[1], "Productor " + productor);
+                siguiente[productor]++;
+            }
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+
+        for (int p = 0; p < productores; p++) {
+            assertEquals(porProductor, siguiente[p]);
+        }
+        assertEquals(0, buffer.getOcupacion());
+    }
+}
@@ -0,0 +1,111 @@
+package es.jeremy.ejeh;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de {@link HistogramaLatencias}: límites de las cubetas, desbordamiento, percentiles y suma.
+ */
+class HistogramaLatenciasTest {
+
+    @Test
+    void guardaExactosLosValoresMenoresDe64() {
+        for (long valor = 0; valor < 64; valor++) {
+            assertEquals(valor, limiteDe(valor));
+        }
+    }
+
+    @Test
+    void separaLasCubetasEnLosCambiosDePotencia() {
+        assertEquals(63, limiteDe(63));
+        assertEquals(65, limiteDe(64)); // A partir de 64 las cubetas tienen dos valores
+        assertEquals(65, limiteDe(65));
+        assertEquals(127, limiteDe(126));
+        assertEquals(127, limiteDe(127));
+        assertEquals(131, limiteDe(128)); // Y a partir de 128, cuatro
+        assertEquals(131, limiteDe(131));
+        assertEquals(135, limiteDe(132));
+    }
+
+    @Test
+    void mantieneElErrorRelativoPorDebajoDeUnTreintaYDosAvo() {
+        for (long valor = 64; valor < 1L << 45; valor = valor * 3 / 2 + 1) {
+            long limite = limiteDe(valor);
+            assertTrue(limite >= valor, "Valor " + valor + ", límite " + limite);
+            assertTrue(limite - valor <= valor / 32, "Valor " + valor + ", límite " + limite);
+        }
+    }
+
+    @Test
+    void acumulaEnLaUltimaCubetaLosValoresFueraDeRango() {
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        histograma.registrar(1L << 50);
+        histograma.registrar(Long.MAX_VALUE);
+
+        assertEquals(2, histograma.getTotal());
+        assertEquals(Long.MAX_VALUE, histograma.getMaximo());
+        assertEquals((1L << 46) - 1, histograma.percentil(50));
+        assertEquals((1L << 46) - 1, histograma.percentil(100));
+    }
+
+    @Test
+    void registraComoCeroLosValoresNegativos() {
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        histograma.registrar(-5);
+
+        assertEquals(1, histograma.getTotal());
+        assertEquals(0, histograma.getMaximo());
+        assertEquals(0, histograma.percentil(99));
+    }
+
+    @Test
+    void calculaLosPercentiles() {
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        assertEquals(0, histograma.percentil(50));
+
+        for (long valor = 1; valor <= 100; valor++) {
+            histograma.registrar(valor);
+        }
+
+        assertEquals(1, histograma.percentil(0));
+        assertEquals(50, histograma.percentil(50));
+        assertEquals(91, histograma.percentil(90)); // 90 cae en la cubeta [90, 91]
+        assertEquals(100, histograma.percentil(100)); // Limitado al máximo, no al límite de su cubeta
+    }
+
+    @Test
+    void sumaOtroHistograma() {
+        HistogramaLatencias a = new HistogramaLatencias();
+        HistogramaLatencias b = new HistogramaLatencias();
+        for (int i = 0; i < 90; i++) {
+            a.registrar(10);
+        }
+        for (int i = 0; i < 10; i++) {
+            b.registrar(5_000);
+        }
+
+        a.sumar(b);
+
+        assertEquals(100, a.getTotal());
+        assertEquals(5_000, a.getMaximo());
+        assertEquals(10, a.percentil(90));
+        assertEquals(5_000, a.percentil(91));
+        assertEquals(10, b.getTotal()); // El sumado no cambia
+    }
+
+    /**
+     * Devuelve el límite superior de la cubeta de un valor, registrándolo junto a otro mayor para
+     * que el percentil 50 no quede limitado por el máximo.
+     *
+     * @param valor el valor.
+     * @return el límite superior de su cubeta.
+     */
+    private static long limiteDe(long valor) {
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        histograma.registrar(valor);
+        histograma.registrar(Long.MAX_VALUE);
+        return histograma.percentil(50);
+    }
+}
@@ -0,0 +1,177 @@
+package es.jeremy.ejeh;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas del formato de {@link InstantaneaPersonas}: ida y vuelta de los datos y rechazo de
+ * archivos truncados o dañados.
+ */
+class InstantaneaPersonasTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void conservaLasPersonasYLaMarcaDeAgua() throws IOException {
+        List<Persona> personas = List.of(
+                new Persona("José", "Núñez Peña", 34),
+                new Persona("Ana", "García", 0),
+                new Persona("Ana", "López", 127),
+                new Persona("Łukasz", "Müller", 128), // La edad necesita dos bytes de varint
+                new Persona("Zoë", "García", 20_000)); // Y esta, tres
+        Path archivo = directorio.resolve("personas.snap");
+
+        new InstantaneaPersonas(personas, 0x1234_5678_9ABCL).escribir(archivo);
+        InstantaneaPersonas leida = InstantaneaPersonas.leer(archivo);
+
+        assertNotNull(leida);
+        assertEquals(0x1234_5678_9ABCL, leida.getMarcaAgua());
+        assertEquals(personas, leida.getPersonas());
+    }
+
+    @Test
+    void guardaCadaCadenaRepetidaUnaSolaVez() throws IOException {
+        List<Persona> personas = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            personas.add(new Persona("Francisco Javier", "Fernández de la Fuente", 40));
+        }
+        Path archivo = directorio.resolve("personas.snap");
+
+        new InstantaneaPersonas(personas, 1).escribir(archivo);
+
+        // Cabecera, las dos cadenas una vez, tres bytes por fila y el CRC
+        assertTrue(Files.size(archivo) < 24 + 64 + 3 * 1_000 + 8, "Tamaño: " + Files.size(archivo));
+        assertEquals(personas, InstantaneaPersonas.leer(archivo).getPersonas());
+    }
+
+    @Test
+    void guardaLosTextosNulosComoVacios() throws IOException {
+        Path archivo = directorio.resolve("personas.snap");
+
+        new InstantaneaPersonas(List.of(new Persona(null, "García", 30)), 7).escribir(archivo);
+
+        assertEquals(List.of(new Persona("", "García", 30)), InstantaneaPersonas.leer(archivo).getPersonas());
+    }
+
+    @Test
+    void admiteUnaInstantaneaVacia() throws IOException {
+        Path archivo = directorio.resolve("personas.snap");
+
+        new InstantaneaPersonas(List.of(), 0).escribir(archivo);
+
+        assertEquals(List.of(), InstantaneaPersonas.leer(archivo).getPersonas());
+    }
+
+    @Test
+    void sustituyeLaInstantaneaAnteriorSinDejarTemporales() throws IOException {
+        Path archivo = directorio.resolve("cache").resolve("personas.snap");
+
+        new InstantaneaPersonas(List.of(new Persona("Ana", "García", 30)), 1).escribir(archivo);
+        new InstantaneaPersonas(List.of(new Persona("Luis", "Pérez", 45)), 2).escribir(archivo);
+
+        InstantaneaPersonas leida = InstantaneaPersonas.leer(archivo);
+        assertEquals(2, leida.getMarcaAgua());
+        assertEquals(List.of(new Persona("Luis", "Pérez", 45)), leida.getPersonas());
+        try (var archivos = Files.list(archivo.getParent())) {
+            assertEquals(List.of(archivo), archivos.toList());
+        }
+    }
+
+    @Test
+    void devuelveNullSiNoExiste() {
+        assertNull(InstantaneaPersonas.leer(directorio.resolve("no-existe.snap")));
+    }
+
+    @Test
+    void rechazaUnArchivoTruncado() throws IOException {
+        Path archivo = escribirEjemplo();
+        byte[] bytes = Files.readAllBytes(archivo);
+
+        Files.write(archivo, Arrays.copyOf(bytes, bytes.length - 5));
+        assertNull(InstantaneaPersonas.leer(archivo));
+
+        Files.write(archivo, Arrays.copyOf(bytes, 20)); // Ni siquiera la cabecera completa
+        assertNull(InstantaneaPersonas.leer(archivo));
+    }
+
+    @Test
+    void rechazaUnByteCambiado() throws IOException {
+        Path archivo = escribirEjemplo();
+        byte[] bytes = Files.readAllBytes(archivo);
+
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(archivo, bytes);
+
+        assertNull(InstantaneaPersonas.leer(archivo));
+    }
+
+    @Test
+    void rechazaOtraMarcaOVersionAunqueElCrcCoincida() throws IOException {
+        Path archivo = escribirEjemplo();
+        byte[] original = Files.readAllBytes(archivo);
+
+        byte[] otraMarca = original.clone();
+        otraMarca[0] = 'X';
+        Files.write(archivo, firmar(otraMarca));
+        assertNull(InstantaneaPersonas.leer(archivo));
+
+        byte[] otraVersion = original.clone();
+        otraVersion[7] = 2;
+        Files.write(archivo, firmar(otraVersion));
+        assertNull(InstantaneaPersonas.leer(archivo));
+    }
+
+    @Test
+    void rechazaMasFilasDeLasQueHayAunqueElCrcCoincida() throws IOException {
+        Path archivo = escribirEjemplo();
+        byte[] bytes = Files.readAllBytes(archivo);
+
+        ByteBuffer.wrap(bytes).putInt(20, 1_000); // El número de filas, tras marca, versión, marca de agua y cadenas
+        Files.write(archivo, firmar(bytes));
+
+        assertNull(InstantaneaPersonas.leer(archivo));
+    }
+
+    /**
+     * Escribe una instantánea pequeña de ejemplo.
+     *
+     * @return el archivo escrito.
+     * @throws IOException si no se puede escribir.
+     */
+    private Path escribirEjemplo() throws IOException {
+        Path archivo = directorio.resolve("personas.snap");
+        new InstantaneaPersonas(List.of(
+                new Persona("Ana", "García", 30),
+                new Persona("Luis", "García", 45),
+                new Persona("María", "Pérez", 150)), 99).escribir(archivo);
+        return archivo;
+    }
+
+    /**
+     * Vuelve a calcular el CRC de un archivo modificado, para probar las comprobaciones posteriores.
+     *
+     * @param bytes el contenido del archivo, con el CRC en los últimos ocho bytes.
+     * @return el mismo contenido con el CRC corregido.
+     */
+    private static byte[] firmar(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 8);
+        ByteBuffer.wrap(bytes).putLong(bytes.length - 8, crc.getValue());
+        return bytes;
+    }
+}
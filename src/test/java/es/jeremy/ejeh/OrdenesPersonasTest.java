@@ -0,0 +1,208 @@
+package es.jeremy.ejeh;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Pruebas de {@link OrdenesPersonas}: el orden se mantiene con altas, bajas y modificaciones de la
+ * lista base, y los cambios que se notifican llevan a los oyentes al mismo contenido que la vista.
+ */
+class OrdenesPersonasTest {
+    private static final String[] NOMBRES = {"Ana", "Álvaro", "alberto", "Zoë", "Ñoño", "Luis", "Ana María"};
+    private static final String[] APELLIDOS = {"García", "Gómez", "Pérez", "de la Fuente", "Núñez"};
+
+    private ObservableList<Persona> base;
+    private OrdenesPersonas vista;
+    private List<Persona> espejo;
+
+    @BeforeEach
+    void crearVista() {
+        base = FXCollections.observableArrayList(
+                new Persona("Luis", "Pérez", 45),
+                new Persona("Ana", "García", 30),
+                new Persona("Álvaro", "Núñez", 30),
+                new Persona("Zoë", "García", 7),
+                new Persona("Ana", "Gómez", 30));
+        vista = new OrdenesPersonas(base);
+        // Copia mantenida solo con los cambios notificados, como haría la tabla
+        espejo = new ArrayList<>(vista);
+        vista.addListener((ListChangeListener<Persona>) cambio -> {
+            while (cambio.next()) {
+                if (cambio.wasPermutated()) {
+                    espejo.subList(cambio.getFrom(), cambio.getTo()).clear();
+                    espejo.addAll(cambio.getFrom(), cambio.getList().subList(cambio.getFrom(), cambio.getTo()));
+                } else if (!cambio.wasUpdated()) {
+                    espejo.subList(cambio.getFrom(), cambio.getFrom() + cambio.getRemovedSize()).clear();
+                    espejo.addAll(cambio.getFrom(), cambio.getAddedSubList());
+                }
+            }
+        });
+    }
+
+    @Test
+    void sigueLaListaBaseMientrasNoSeOrdena() {
+        base.add(1, new Persona("Nuevo", "Pérez", 20));
+        base.remove(0);
+
+        comprobar(null, true);
+    }
+
+    @Test
+    void ordenaPorCadaColumnaEnAmbosSentidos() {
+        for (OrdenesPersonas.Columna columna : OrdenesPersonas.Columna.values()) {
+            vista.ordenar(columna, true);
+            comprobar(columna, true);
+            vista.ordenar(columna, false);
+            comprobar(columna, false);
+        }
+        vista.ordenar(null, true);
+        comprobar(null, true);
+    }
+
+    @Test
+    void mantieneElOrdenAlAnadir() {
+        vista.ordenar(OrdenesPersonas.Columna.APELLIDOS, true);
+
+        base.add(new Persona("Beatriz", "Alonso", 50));
+        comprobar(OrdenesPersonas.Columna.APELLIDOS, true);
+        base.add(0, new Persona("Ana", "García", 30)); // Repetida: empata en las tres columnas
+        comprobar(OrdenesPersonas.Columna.APELLIDOS, true);
+        base.addAll(List.of(new Persona("Carlos", "Zamora", 60), new Persona("Ana", "García", 29)));
+        comprobar(OrdenesPersonas.Columna.APELLIDOS, true);
+    }
+
+    @Test
+    void mantieneElOrdenAlQuitar() {
+        vista.ordenar(OrdenesPersonas.Columna.EDAD, false);
+
+        base.remove(2);
+        comprobar(OrdenesPersonas.Columna.EDAD, false);
+        base.remove(0, 2);
+        comprobar(OrdenesPersonas.Columna.EDAD, false);
+        base.clear();
+        comprobar(OrdenesPersonas.Columna.EDAD, false);
+    }
+
+    @Test
+    void mantieneElOrdenAlModificar() {
+        vista.ordenar(OrdenesPersonas.Columna.NOMBRE, true);
+
+        base.set(0, new Persona("Aarón", "Pérez", 45)); // Pasa del final al principio
+        comprobar(OrdenesPersonas.Columna.NOMBRE, true);
+        base.set(3, new Persona("Zoë", "García", 8)); // Solo cambia el desempate
+        comprobar(OrdenesPersonas.Columna.NOMBRE, true);
+    }
+
+    @Test
+    void mantieneLosOrdenesInactivosAlDia() {
+        vista.ordenar(OrdenesPersonas.Columna.NOMBRE, true);
+        vista.ordenar(OrdenesPersonas.Columna.EDAD, true);
+
+        base.set(1, new Persona("Zacarías", "García", 99));
+        base.add(new Persona("Aarón", "Gómez", 1));
+        base.remove(0);
+
+        vista.ordenar(OrdenesPersonas.Columna.NOMBRE, false); // Se sirve del orden guardado, sin reconstruirlo
+        comprobar(OrdenesPersonas.Columna.NOMBRE, false);
+    }
+
+    @Test
+    void reconstruyeElOrdenTrasUnCambioMasivo() {
+        vista.ordenar(OrdenesPersonas.Columna.APELLIDOS, true);
+        vista.ordenar(OrdenesPersonas.Columna.EDAD, true);
+
+        base.setAll(aleatorias(new Random(1), 500));
+        comprobar(OrdenesPersonas.Columna.EDAD, true);
+
+        vista.ordenar(OrdenesPersonas.Columna.APELLIDOS, false);
+        comprobar(OrdenesPersonas.Columna.APELLIDOS, false);
+    }
+
+    @Test
+    void mantieneElOrdenConCambiosAleatorios() {
+        Random aleatorio = new Random(42);
+        base.setAll(aleatorias(aleatorio, 200));
+        OrdenesPersonas.Columna[] columnas = OrdenesPersonas.Columna.values();
+
+        for (int paso = 0; paso < 2_000; paso++) {
+            if (paso % 100 == 0) {
+                vista.ordenar(columnas[aleatorio.nextInt(columnas.length)], aleatorio.nextBoolean());
+            }
+            int operacion = aleatorio.nextInt(3);
+            if (operacion == 0 || base.isEmpty()) {
+                base.add(aleatorio.nextInt(base.size() + 1), aleatorias(aleatorio, 1).get(0));
+            } else if (operacion == 1) {
+                base.remove(aleatorio.nextInt(base.size()));
+            } else {
+                base.set(aleatorio.nextInt(base.size()), aleatorias(aleatorio, 1).get(0));
+            }
+            comprobar(vista.getColumna(), vista.isAscendente());
+        }
+    }
+
+    /**
+     * Comprueba que la vista y la copia mantenida con sus cambios tienen las personas de la lista
+     * base en el orden esperado.
+     *
+     * @param columna    la columna, o {@code null} para el orden de la lista base.
+     * @param ascendente el sentido del orden.
+     */
+    private void comprobar(OrdenesPersonas.Columna columna, boolean ascendente) {
+        List<Persona> esperado = new ArrayList<>(base);
+        if (columna != null) {
+            esperado.sort(comparador(columna));
+            if (!ascendente) {
+                Collections.reverse(esperado);
+            }
+        }
+        assertEquals(esperado, new ArrayList<>(vista));
+        assertEquals(esperado, espejo);
+    }
+
+    /**
+     * Devuelve el comparador de referencia de una columna, con los mismos desempates que la vista.
+     *
+     * @param columna la columna.
+     * @return el comparador.
+     */
+    private static Comparator<Persona> comparador(OrdenesPersonas.Columna columna) {
+        Collator collator = Collator.getInstance();
+        Comparator<String> texto = collator::compare;
+        return switch (columna) {
+            case NOMBRE -> Comparator.comparing(Persona::getNombre, texto)
+                    .thenComparing(Persona::getApellidos, texto).thenComparingInt(Persona::getEdad);
+            case APELLIDOS -> Comparator.comparing(Persona::getApellidos, texto)
+                    .thenComparing(Persona::getNombre, texto).thenComparingInt(Persona::getEdad);
+            case EDAD -> Comparator.comparingInt(Persona::getEdad)
+                    .thenComparing(Persona::getApellidos, texto).thenComparing(Persona::getNombre, texto);
+        };
+    }
+
+    /**
+     * Genera personas al azar de un repertorio pequeño, para que haya muchos empates y repetidas.
+     *
+     * @param aleatorio el generador.
+     * @param cantidad  el número de personas.
+     * @return las personas.
+     */
+    private static List<Persona> aleatorias(Random aleatorio, int cantidad) {
+        List<Persona> personas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            personas.add(new Persona(NOMBRES[aleatorio.nextInt(NOMBRES.length)],
+                    APELLIDOS[aleatorio.nextInt(APELLIDOS.length)], aleatorio.nextInt(100)));
+        }
+        return personas;
+    }
+}
@@ -0,0 +1,90 @@
+package es.jeremy.ejeh;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de {@link SimilitudNombres}: clave de comparación, código fonético y Jaro-Winkler.
+ */
+class SimilitudNombresTest {
+    private static final double PRECISION = 0.0001;
+
+    @Test
+    void calculaLosValoresDeReferenciaDeJaroWinkler() {
+        // Los ejemplos clásicos de Winkler
+        assertEquals(0.9611, SimilitudNombres.jaroWinkler("martha", "marhta"), PRECISION);
+        assertEquals(0.8400, SimilitudNombres.jaroWinkler("dwayne", "duane"), PRECISION);
+        assertEquals(0.8133, SimilitudNombres.jaroWinkler("dixon", "dicksonx"), PRECISION);
+    }
+
+    @Test
+    void acotaJaroWinklerEntreCeroYUno() {
+        assertEquals(1.0, SimilitudNombres.jaroWinkler("garcia", "garcia"), PRECISION);
+        assertEquals(1.0, SimilitudNombres.jaroWinkler("", ""), PRECISION);
+        assertEquals(0.0, SimilitudNombres.jaroWinkler("garcia", ""), PRECISION);
+        assertEquals(0.0, SimilitudNombres.jaroWinkler("abc", "xyz"), PRECISION);
+    }
+
+    @Test
+    void esSimetrica() {
+        String[][] pares = {{"martha", "marhta"}, {"gonzalez", "gonzales"}, {"ana", "anabel"}, {"perez", "pedro"}};
+        for (String[] par : pares) {
+            assertEquals(SimilitudNombres.jaroWinkler(par[0], par[1]),
+                    SimilitudNombres.jaroWinkler(par[1], par[0]), PRECISION, par[0] + " / " + par[1]);
+        }
+    }
+
+    @Test
+    void premiaElPrefijoComun() {
+        assertTrue(SimilitudNombres.jaroWinkler("fernandez", "fernandes")
+                > SimilitudNombres.jaroWinkler("fernandez", "hernandez"));
+    }
+
+    @Test
+    void normalizaLaClaveDeComparacion() {
+        assertEquals("jose maria nuñez", SimilitudNombres.clave("  José   MARÍA-Núñez. "));
+        assertEquals("o donnell", SimilitudNombres.clave("O'Donnell"));
+        assertEquals("", SimilitudNombres.clave(null));
+        assertEquals("", SimilitudNombres.clave(" 123 "));
+    }
+
+    @Test
+    void agrupaLasLetrasQueSuenanIgual() {
+        assertMismoCodigo("BSNT", "Vicente", "Bisente");
+        assertMismoCodigo("JNNS", "Giménez", "Jiménez");
+        assertMismoCodigo("YRNT", "Llorente", "Yorente");
+        assertMismoCodigo("KK", "Quique", "Kike");
+        assertMismoCodigo("ALBR", "Álvaro", "Albaro");
+        assertMismoCodigo("SSL", "Cecilia", "Zezilia");
+    }
+
+    @Test
+    void distingueLaCYLaGSegunLaVocalSiguiente() {
+        assertEquals("KRLS", SimilitudNombres.codigoFonetico("carlos"));
+        assertEquals("SSR", SimilitudNombres.codigoFonetico("cesar"));
+        assertEquals("GRS", SimilitudNombres.codigoFonetico("garcia"));
+        assertEquals("JRNN", SimilitudNombres.codigoFonetico("geronimo"));
+    }
+
+    @Test
+    void codificaSoloLaPrimeraPalabraYComoMuchoSeisLetras() {
+        assertEquals(SimilitudNombres.codigoFonetico("maria"), SimilitudNombres.codigoFonetico("maria jose"));
+        assertEquals("PRSBTR", SimilitudNombres.codigoFonetico("presbiteriano"));
+        assertEquals("", SimilitudNombres.codigoFonetico(""));
+        assertEquals("", SimilitudNombres.codigoFonetico("h"));
+    }
+
+    /**
+     * Comprueba que dos nombres tienen el código fonético esperado.
+     *
+     * @param esperado el código esperado.
+     * @param a        el primer nombre.
+     * @param b        el segundo nombre.
+     */
+    private static void assertMismoCodigo(String esperado, String a, String b) {
+        assertEquals(esperado, SimilitudNombres.codigoFonetico(SimilitudNombres.clave(a)), a);
+        assertEquals(esperado, SimilitudNombres.codigoFonetico(SimilitudNombres.clave(b)), b);
+    }
+}
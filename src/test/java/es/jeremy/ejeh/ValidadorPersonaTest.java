@@ -0,0 +1,120 @@
+package es.jeremy.ejeh;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de {@link ValidadorPersona}, sobre todo de que la validación de un formulario y la de
+ * un lote den el mismo resultado para los mismos datos.
+ */
+class ValidadorPersonaTest {
+
+    /**
+     * Datos de prueba: válidos, válidos tras normalizar y no válidos por cada motivo.
+     */
+    private static final List<Persona> CASOS = Arrays.asList(
+            new Persona("Ana", "García", 30),
+            new Persona("  Ana  ", " García   López ", 0),
+            new Persona("Ana\u00a0María", "García\tLópez", 150),
+            new Persona("Jose\u0301", "Nu\u0301n\u0303ez", 45), // Acentos descompuestos (NFD)
+            new Persona("María-José", "O'Donnell St. John", 22),
+            new Persona("Zoë", "D’Angelo", 1),
+            new Persona("", "García", 30),
+            new Persona("   ", "García", 30),
+            new Persona(null, "García", 30),
+            new Persona("Ana", null, 30),
+            new Persona("Ana", "García", 151),
+            new Persona("Ana3", "García", 30),
+            new Persona("Ana", "García <script>", 30),
+            new Persona("-Ana", "García", 30),
+            new Persona("a".repeat(ValidadorPersona.LONGITUD_MAXIMA_NOMBRE), "García", 30),
+            new Persona("a".repeat(ValidadorPersona.LONGITUD_MAXIMA_NOMBRE + 1), "García", 30),
+            new Persona("Ana", "b".repeat(ValidadorPersona.LONGITUD_MAXIMA_APELLIDOS + 1), 30),
+            new Persona("", "", 200));
+
+    @Test
+    void validarYValidarLoteCoinciden() {
+        ValidadorPersona.Lote lote = ValidadorPersona.validarLote(CASOS);
+
+        int siguienteValida = 0;
+        for (int i = 0; i < CASOS.size(); i++) {
+            ValidadorPersona.Resultado resultado = ValidadorPersona.validar(CASOS.get(i));
+            String caso = "Caso " + i + ": " + CASOS.get(i).getNombre() + " / " + CASOS.get(i).getApellidos();
+            if (resultado.esValido()) {
+                assertFalse(lote.rechazadas().containsKey(i), caso);
+                assertEquals(resultado.persona(), lote.validas().get(siguienteValida++), caso);
+            } else {
+                // El lote solo informa del primer error de cada fila
+                assertEquals(resultado.errores().values().iterator().next(), lote.rechazadas().get(i), caso);
+            }
+        }
+        assertEquals(siguienteValida, lote.validas().size());
+        assertEquals(CASOS.size(), lote.validas().size() + lote.rechazadas().size());
+    }
+
+    @Test
+    void normalizaEspaciosYAcentos() {
+        ValidadorPersona.Resultado resultado = ValidadorPersona.validar(" Jose\u0301 ", "Nu\u0301n\u0303ez \u00a0 Peña", " 45 ");
+
+        assertTrue(resultado.esValido(), resultado.mensaje());
+        assertEquals(new Persona("José", "Núñez Peña", 45), resultado.persona());
+    }
+
+    @Test
+    void devuelveLaMismaInstanciaSiYaEstaNormalizada() {
+        Persona normalizada = new Persona("Ana", "García", 30);
+        Persona sinNormalizar = new Persona("Ana ", "García", 30);
+
+        ValidadorPersona.Lote lote = ValidadorPersona.validarLote(List.of(normalizada, sinNormalizar));
+
+        assertSame(normalizada, lote.validas().get(0));
+        assertEquals(new Persona("Ana", "García", 30), lote.validas().get(1));
+    }
+
+    @Test
+    void rechazaLasFilasVaciasDeUnLote() {
+        List<Persona> personas = new ArrayList<>();
+        personas.add(null);
+        personas.add(new Persona("Ana", "García", 30));
+
+        ValidadorPersona.Lote lote = ValidadorPersona.validarLote(personas);
+
+        assertEquals("Fila vacía", lote.rechazadas().get(0));
+        assertEquals(1, lote.validas().size());
+    }
+
+    @Test
+    void validarCampoCoincideConElFormulario() {
+        String[] textos = {"Ana", "  Ana  María ", "", " ", null, "Ana3", "a".repeat(51), "Jose\u0301"};
+        for (String texto : textos) {
+            ValidadorPersona.Resultado resultado = ValidadorPersona.validar(texto, "García", "30");
+            assertEquals(resultado.errores().get(ValidadorPersona.Campo.NOMBRE),
+                    ValidadorPersona.validarCampo(ValidadorPersona.Campo.NOMBRE, texto), String.valueOf(texto));
+        }
+        String[] edades = {"0", " 30 ", "150", "151", "-1", "3a", "", null, "0030"};
+        for (String edad : edades) {
+            ValidadorPersona.Resultado resultado = ValidadorPersona.validar("Ana", "García", edad);
+            assertEquals(resultado.errores().get(ValidadorPersona.Campo.EDAD),
+                    ValidadorPersona.validarCampo(ValidadorPersona.Campo.EDAD, edad), String.valueOf(edad));
+        }
+    }
+
+    @Test
+    void informaDeTodosLosErroresDelFormulario() {
+        ValidadorPersona.Resultado resultado = ValidadorPersona.validar("", "García1", "abc");
+
+        assertNull(resultado.persona());
+        assertEquals(3, resultado.errores().size());
+        assertEquals("El campo nombre es obligatorio.", resultado.errores().get(ValidadorPersona.Campo.NOMBRE));
+        assertEquals("La edad debe ser un número entre 0 y 150.", resultado.errores().get(ValidadorPersona.Campo.EDAD));
+    }
+}